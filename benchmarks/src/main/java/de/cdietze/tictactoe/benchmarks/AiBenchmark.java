@@ -0,0 +1,33 @@
+package de.cdietze.tictactoe.benchmarks;
+
+import de.cdietze.tictactoe.core.Ai;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AiBenchmark {
+
+    @Param({"EMPTY", "MID_GAME", "END_GAME"})
+    public SampleBoard board;
+
+    @Param({"TABLE", "MINIMAX", "ALPHA_BETA"})
+    public Ai.Strategy strategy;
+
+    private int state;
+
+    @Setup
+    public void setup() {
+        state = board.state();
+    }
+
+    @Benchmark
+    public Ai.EvalResult eval() {
+        return Ai.eval(state, strategy);
+    }
+}
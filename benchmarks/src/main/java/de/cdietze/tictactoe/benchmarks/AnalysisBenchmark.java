@@ -0,0 +1,53 @@
+package de.cdietze.tictactoe.benchmarks;
+
+import de.cdietze.tictactoe.core.Ai;
+import de.cdietze.tictactoe.core.Analysis;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scoring every empty field with one {@link Ai#analyze(int)} against one {@link Ai#eval(int, Ai.Strategy)} per move.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AnalysisBenchmark {
+
+    @Param({"EMPTY", "MID_GAME", "END_GAME"})
+    public SampleBoard board;
+
+    private int state;
+
+    @Setup
+    public void setup() {
+        state = board.state();
+    }
+
+    @Benchmark
+    public Analysis analyze() {
+        return Ai.analyze(state);
+    }
+
+    @Benchmark
+    public void evalPerMoveTable(Blackhole blackhole) {
+        evalPerMove(Ai.Strategy.TABLE, blackhole);
+    }
+
+    @Benchmark
+    public void evalPerMoveAlphaBeta(Blackhole blackhole) {
+        evalPerMove(Ai.Strategy.ALPHA_BETA, blackhole);
+    }
+
+    private void evalPerMove(Ai.Strategy strategy, Blackhole blackhole) {
+        boolean isXToMove = Ai.isXToMove(state);
+        for (int i = 0; i < 9; i++) {
+            if (Ai.getField(state, i) != Ai.Field.EMPTY) continue;
+            blackhole.consume(Ai.eval(Ai.setField(state, i, isXToMove), strategy));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package de.cdietze.tictactoe.benchmarks;
+
+import de.cdietze.tictactoe.core.Ai;
+import de.cdietze.tictactoe.core.BatchEval;
+import de.cdietze.tictactoe.engine.ParallelBatchEval;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Positions per second of one {@link Ai#eval(int, Ai.Strategy)} call per state against {@link BatchEval} and
+ * {@link ParallelBatchEval}. Every operation is one position, so the throughput is directly in positions per second.
+ * The searching strategies show the effect of evaluating every canonical state only once.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchEvalBenchmark {
+
+    private static final int BATCH_SIZE = 1 << 16;
+
+    @Param({"TABLE", "ALPHA_BETA"})
+    public Ai.Strategy strategy;
+
+    private int[] states;
+    private int[] ratings;
+    private int[] bestMoves;
+    private int[] depths;
+    private BatchEval batchEval;
+    private ForkJoinPool pool;
+    private ParallelBatchEval parallelBatchEval;
+
+    @Setup
+    public void setup() {
+        states = SampleStates.random(BATCH_SIZE, 42);
+        ratings = new int[BATCH_SIZE];
+        bestMoves = new int[BATCH_SIZE];
+        depths = new int[BATCH_SIZE];
+        batchEval = new BatchEval(strategy);
+        pool = new ForkJoinPool();
+        parallelBatchEval = new ParallelBatchEval(pool, strategy);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void single(Blackhole blackhole) {
+        for (int state : states) blackhole.consume(Ai.eval(state, strategy));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int[] batch() {
+        batchEval.eval(states, ratings, bestMoves, depths);
+        return ratings;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int[] parallelBatch() {
+        parallelBatchEval.eval(states, ratings, bestMoves, depths);
+        return ratings;
+    }
+}
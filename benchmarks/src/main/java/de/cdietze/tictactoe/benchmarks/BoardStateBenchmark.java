@@ -0,0 +1,48 @@
+package de.cdietze.tictactoe.benchmarks;
+
+import de.cdietze.tictactoe.core.BoardState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code playDrawnGame} plays a full drawn game through {@link BoardState#tryToMark(int)}, which also runs the game
+ * state check after every move. The score includes creating the {@link BoardState}. {@code scrubHistory} jumps through
+ * every ply of that game and back, like dragging a slider over the history in an analysis view.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardStateBenchmark {
+
+    private static final int[] DRAWN_GAME = {0, 1, 2, 4, 3, 5, 7, 6, 8};
+
+    private BoardState playedGame;
+
+    @Setup
+    public void setup() {
+        playedGame = new BoardState();
+        for (int fieldIndex : DRAWN_GAME) {
+            playedGame.tryToMark(fieldIndex);
+        }
+    }
+
+    @Benchmark
+    public BoardState.GameState playDrawnGame() {
+        BoardState boardState = new BoardState();
+        for (int fieldIndex : DRAWN_GAME) {
+            boardState.tryToMark(fieldIndex);
+        }
+        return boardState.gameState.get();
+    }
+
+    @Benchmark
+    public int scrubHistory() {
+        for (int ply = 0; ply <= DRAWN_GAME.length; ply++) playedGame.jumpToPly(ply);
+        for (int ply = DRAWN_GAME.length; ply >= 0; ply--) playedGame.jumpToPly(ply);
+        return playedGame.aiState();
+    }
+}
@@ -0,0 +1,38 @@
+package de.cdietze.tictactoe.benchmarks;
+
+import de.cdietze.tictactoe.core.Ai;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EncodingBenchmark {
+
+    private static final int MASK = 4096 - 1;
+
+    private int[] states;
+    private String[] strings;
+    private int index;
+
+    @Setup
+    public void setup() {
+        states = SampleStates.random(MASK + 1, 42);
+        strings = new String[states.length];
+        for (int i = 0; i < states.length; i++) strings[i] = Ai.stateToString(states[i]);
+    }
+
+    @Benchmark
+    public String stateToString() {
+        return Ai.stateToString(states[index++ & MASK]);
+    }
+
+    @Benchmark
+    public int stringToState() {
+        return Ai.stringToState(strings[index++ & MASK]);
+    }
+}
@@ -0,0 +1,61 @@
+package de.cdietze.tictactoe.benchmarks;
+
+import de.cdietze.tictactoe.core.Ai;
+import de.cdietze.tictactoe.core.MnkGame;
+import de.cdietze.tictactoe.core.MnkState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluations per second of the incrementally maintained heuristic score. {@code markEvaluateClear} adds the update
+ * of the pattern tables on a move and its undo, the cost of one leaf of a search.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EvaluationBenchmark {
+
+    @Param({"3,3,3", "7,6,4", "15,15,5"})
+    public String variant;
+
+    private MnkState state;
+    private int[] emptyFields;
+    private int next;
+
+    @Setup
+    public void setup() {
+        String[] parts = variant.split(",");
+        MnkGame game = new MnkGame(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        state = game.newState();
+        Random random = new Random(1);
+        for (int n = 0; n < game.fieldCount() / 4; n++) {
+            int index = random.nextInt(game.fieldCount());
+            if (state.getField(index) == Ai.Field.EMPTY) state.setField(index, state.isXToMove());
+        }
+        emptyFields = new int[game.fieldCount() - state.markCount()];
+        int count = 0;
+        for (int i = 0; i < game.fieldCount(); i++) {
+            if (state.getField(i) == Ai.Field.EMPTY) emptyFields[count++] = i;
+        }
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return state.evaluate();
+    }
+
+    @Benchmark
+    public int markEvaluateClear() {
+        int index = emptyFields[next];
+        next = next + 1 == emptyFields.length ? 0 : next + 1;
+        state.setField(index, state.isXToMove());
+        int score = state.evaluate();
+        state.clearField(index);
+        return score;
+    }
+}
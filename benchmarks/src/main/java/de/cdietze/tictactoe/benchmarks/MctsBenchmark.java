@@ -0,0 +1,45 @@
+package de.cdietze.tictactoe.benchmarks;
+
+import de.cdietze.tictactoe.core.MctsAi;
+import de.cdietze.tictactoe.core.MnkGame;
+import de.cdietze.tictactoe.core.MnkState;
+import de.cdietze.tictactoe.core.SearchLimits;
+import de.cdietze.tictactoe.core.SearchResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Playouts per second of {@link MctsAi}: every operation is one playout, so the throughput is directly in playouts
+ * per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MctsBenchmark {
+
+    private static final int PLAYOUTS = 10000;
+
+    @Param({"3,3,3", "4,4,4", "7,6,4", "15,15,5"})
+    public String variant;
+
+    private MnkState state;
+    private MctsAi ai;
+
+    @Setup
+    public void setup() {
+        String[] parts = variant.split(",");
+        MnkGame game = new MnkGame(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        state = game.newState();
+        ai = new MctsAi(game);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PLAYOUTS)
+    public SearchResult search() {
+        return ai.search(state, SearchLimits.nodes(PLAYOUTS));
+    }
+}
@@ -0,0 +1,57 @@
+package de.cdietze.tictactoe.benchmarks;
+
+import de.cdietze.tictactoe.core.Ai;
+import de.cdietze.tictactoe.core.MnkAi;
+import de.cdietze.tictactoe.core.MnkGame;
+import de.cdietze.tictactoe.core.MnkState;
+import de.cdietze.tictactoe.core.SearchLimits;
+import de.cdietze.tictactoe.core.SearchResult;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MnkBenchmark {
+
+    @Param({"3,3,3", "4,4,4", "7,6,4", "15,15,5"})
+    public String variant;
+
+    private MnkState state;
+    private MnkAi ai;
+
+    @Setup
+    public void setup() {
+        String[] parts = variant.split(",");
+        MnkGame game = new MnkGame(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        state = game.newState();
+        // A few scattered marks so the win check has something to look at
+        state.setField(game.index(0, 0), true);
+        state.setField(game.index(game.width - 1, 0), false);
+        state.setField(game.index(1, 1), true);
+        state.setField(game.index(game.width - 1, game.height - 1), false);
+        ai = new MnkAi(game);
+    }
+
+    @Benchmark
+    public boolean hasXWon() {
+        return state.hasXWon();
+    }
+
+    @Benchmark
+    public Ai.EvalResult evalDepth3() {
+        return ai.eval(state, 3);
+    }
+
+    /**
+     * A fixed node budget, so the average time per operation divided by 10000 is the cost of a node.
+     */
+    @Benchmark
+    public SearchResult search10000Nodes() {
+        return ai.search(state, SearchLimits.nodes(10000));
+    }
+}
@@ -0,0 +1,75 @@
+package de.cdietze.tictactoe.benchmarks;
+
+import de.cdietze.tictactoe.core.Ai;
+import de.cdietze.tictactoe.core.MnkAi;
+import de.cdietze.tictactoe.core.MnkGame;
+import de.cdietze.tictactoe.core.MnkState;
+import de.cdietze.tictactoe.core.SharedTranspositionTable;
+import de.cdietze.tictactoe.engine.ParallelSearch;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of the root-split search from one thread up to the number of cores. {@code threads = 0} is the serial
+ * {@link MnkAi} as the baseline. {@code table} picks the replacement policy of a {@link SharedTranspositionTable}
+ * shared by all threads, or {@code NONE} to search without one. The table is cleared before every search.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelSearchBenchmark {
+
+    @Param({"0", "1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"4,4,4", "7,6,4"})
+    public String variant;
+
+    @Param({"NONE", "ALWAYS", "DEPTH_PREFERRED", "TWO_TIER"})
+    public String table;
+
+    private MnkState state;
+    private MnkAi serial;
+    private ForkJoinPool pool;
+    private ParallelSearch parallel;
+    private SharedTranspositionTable transpositionTable;
+    private int depth;
+
+    @Setup
+    public void setup() {
+        String[] parts = variant.split(",");
+        MnkGame game = new MnkGame(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+        state = game.newState();
+        state.setField(game.index(1, 1), true);
+        state.setField(game.index(2, 1), false);
+        depth = game.fieldCount() > 16 ? 6 : 8;
+        if (!table.equals("NONE")) {
+            transpositionTable = new SharedTranspositionTable(20, SharedTranspositionTable.Replacement.valueOf(table));
+        }
+        serial = new MnkAi(game, null, transpositionTable);
+        if (threads > 0) {
+            pool = new ForkJoinPool(threads);
+            parallel = new ParallelSearch(game, pool, transpositionTable);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        if (transpositionTable != null) transpositionTable.clear();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    @Benchmark
+    public Ai.EvalResult eval() {
+        return threads == 0 ? serial.eval(state, depth) : parallel.eval(state, depth);
+    }
+}
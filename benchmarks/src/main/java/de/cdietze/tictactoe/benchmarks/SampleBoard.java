@@ -0,0 +1,22 @@
+package de.cdietze.tictactoe.benchmarks;
+
+import de.cdietze.tictactoe.core.Ai;
+
+/**
+ * Fixed positions at different stages of the game.
+ */
+public enum SampleBoard {
+    EMPTY("...|...|..."),
+    MID_GAME("X.O|.X.|..."),
+    END_GAME("XOX|XO.|O..");
+
+    public final String representation;
+
+    SampleBoard(String representation) {
+        this.representation = representation;
+    }
+
+    public int state() {
+        return Ai.stringToState(representation);
+    }
+}
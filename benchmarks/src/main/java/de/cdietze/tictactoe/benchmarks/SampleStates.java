@@ -0,0 +1,36 @@
+package de.cdietze.tictactoe.benchmarks;
+
+import de.cdietze.tictactoe.core.Ai;
+
+import java.util.Random;
+
+/**
+ * Generates legal states by playing a random number of random moves.
+ */
+public final class SampleStates {
+
+    private SampleStates() {
+    }
+
+    public static int[] random(int count, long seed) {
+        Random random = new Random(seed);
+        int[] states = new int[count];
+        for (int n = 0; n < count; n++) {
+            int state = Ai.emptyState;
+            int moves = random.nextInt(10);
+            for (int m = 0; m < moves && !isFinished(state); m++) {
+                int index;
+                do {
+                    index = random.nextInt(9);
+                } while (Ai.getField(state, index) != Ai.Field.EMPTY);
+                state = Ai.setField(state, index, Ai.isXToMove(state));
+            }
+            states[n] = state;
+        }
+        return states;
+    }
+
+    public static boolean isFinished(int state) {
+        return Ai.hasXWon(state) || Ai.hasOWon(state) || Ai.isDraw(state);
+    }
+}
@@ -0,0 +1,69 @@
+package de.cdietze.tictactoe.benchmarks;
+
+import de.cdietze.tictactoe.core.Ai;
+import de.cdietze.tictactoe.core.MnkGame;
+import de.cdietze.tictactoe.core.MnkState;
+import de.cdietze.tictactoe.engine.Tablebase;
+import de.cdietze.tictactoe.engine.TablebaseGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Perfect moves on the 4,4,4-game from the memory-mapped table, for positions after 0 to 8 random moves.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TablebaseBenchmark {
+
+    private static final int STATE_COUNT = 1024;
+
+    private Path file;
+    private Tablebase tablebase;
+    private MnkState[] states;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        MnkGame game = new MnkGame(4, 4, 4);
+        file = Files.createTempFile("tablebase", ".bin");
+        Files.delete(file);
+        ForkJoinPool pool = new ForkJoinPool();
+        tablebase = new TablebaseGenerator(game, pool).generate(file);
+        pool.shutdown();
+        Random random = new Random(1);
+        states = new MnkState[STATE_COUNT];
+        for (int n = 0; n < STATE_COUNT; n++) {
+            MnkState state = game.newState();
+            int moves = random.nextInt(9);
+            for (int m = 0; m < moves && !state.hasXWon() && !state.hasOWon(); m++) {
+                int index;
+                do {
+                    index = random.nextInt(game.fieldCount());
+                } while (state.getField(index) != Ai.Field.EMPTY);
+                state.setField(index, state.isXToMove());
+            }
+            states[n] = state;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Ai.EvalResult eval() {
+        next = (next + 1) & (STATE_COUNT - 1);
+        return tablebase.eval(states[next]);
+    }
+}
@@ -0,0 +1,51 @@
+package de.cdietze.tictactoe.benchmarks;
+
+import de.cdietze.tictactoe.core.MnkGame;
+import de.cdietze.tictactoe.engine.TablebaseGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to solve all 3^16 positions of the 4,4,4-game from scratch, by the number of threads.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TablebaseGenerationBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private ForkJoinPool pool;
+    private Path file;
+
+    @Setup
+    public void setup() throws IOException {
+        pool = new ForkJoinPool(threads);
+        file = Files.createTempFile("tablebase", ".bin");
+    }
+
+    @Setup(Level.Invocation)
+    public void deleteCheckpoint() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Object generate() throws IOException {
+        return new TablebaseGenerator(new MnkGame(4, 4, 4), pool).generate(file);
+    }
+}
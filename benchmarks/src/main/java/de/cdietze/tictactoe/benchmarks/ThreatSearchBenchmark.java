@@ -0,0 +1,71 @@
+package de.cdietze.tictactoe.benchmarks;
+
+import de.cdietze.tictactoe.core.MnkGame;
+import de.cdietze.tictactoe.core.MnkState;
+import de.cdietze.tictactoe.core.SearchLimits;
+import de.cdietze.tictactoe.core.SearchResult;
+import de.cdietze.tictactoe.core.ThreatSearch;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to solve gomoku positions with a known forced win for X, from a win by an open four up to wins 17 moves deep.
+ * The setup fails if a position is no longer solved, so a regression in the search can't hide behind a faster time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ThreatSearchBenchmark {
+
+    private static final String EMPTY_ROWS = "...............|...............|...............|...............|";
+
+    @Param({"openFour", "fours5", "three5", "threats9", "threats11", "threats17a", "threats17b"})
+    public String position;
+
+    private MnkState state;
+    private ThreatSearch search;
+
+    @Setup
+    public void setup() {
+        MnkGame game = new MnkGame(15, 15, 5);
+        state = game.parse(board(position));
+        search = new ThreatSearch(game);
+        if (!solve().isSolved) throw new IllegalStateException("Position " + position + " is not solved");
+    }
+
+    @Benchmark
+    public SearchResult solve() {
+        return search.search(state, SearchLimits.NONE);
+    }
+
+    private static String board(String position) {
+        switch (position) {
+            case "openFour":
+                return EMPTY_ROWS + "O.............O|...............|.....XXX.......|O..............|";
+            case "fours5":
+                return EMPTY_ROWS + "O.............O|...............|..OXXX.........|......X........|"
+                        + "......X........|O.............O|";
+            case "three5":
+                return EMPTY_ROWS + ".....XO..O.....|.......XO......|.....OX.O......|.....X....O....|"
+                        + "........OX.....|....X...OX.....|.........X.....|";
+            case "threats9":
+                return EMPTY_ROWS + "....X..OO......|.....OO..X.....|.......OX......|....O...O......|"
+                        + "....X..X.X.....|.....X.........|.....O.X.......|";
+            case "threats11":
+                return EMPTY_ROWS + "....X.X..X.....|......XO.OO....|......OXOX.....|.......X.O.....|"
+                        + "...............|.........X.....|.....O..O......|";
+            case "threats17a":
+                return EMPTY_ROWS + "..........X....|....OXX........|....O....OO....|.......XO......|"
+                        + ".........XO....|.......XX......|.....O..XO.....|";
+            case "threats17b":
+                return EMPTY_ROWS + "....O..........|....O...XXO....|.........OX....|.....O..X.O....|"
+                        + ".....X.........|.....X..X.X....|.....O..O......|";
+            default:
+                throw new IllegalArgumentException("Unknown position: " + position);
+        }
+    }
+}
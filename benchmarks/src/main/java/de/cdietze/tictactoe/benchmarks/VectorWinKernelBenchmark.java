@@ -0,0 +1,22 @@
+package de.cdietze.tictactoe.benchmarks;
+
+import de.cdietze.tictactoe.engine.WinKernel;
+import de.cdietze.tictactoe.engine.WinKernels;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link WinKernelBenchmark} with the kernel on the incubating Java Vector API. Only this fork adds the vector module.
+ * It needs a benchmarks jar built with {@code -Psimd} and fails otherwise instead of silently measuring the scalar
+ * fallback.
+ */
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class VectorWinKernelBenchmark extends WinKernelBenchmark {
+
+    @Override
+    WinKernel createKernel() {
+        return WinKernels.vector();
+    }
+}
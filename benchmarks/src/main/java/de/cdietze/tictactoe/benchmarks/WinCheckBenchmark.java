@@ -0,0 +1,43 @@
+package de.cdietze.tictactoe.benchmarks;
+
+import de.cdietze.tictactoe.core.Ai;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each invocation checks the next of 4096 random legal states, so branch prediction can't learn a single position.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WinCheckBenchmark {
+
+    private static final int MASK = 4096 - 1;
+
+    private int[] states;
+    private int index;
+
+    @Setup
+    public void setup() {
+        states = SampleStates.random(MASK + 1, 42);
+    }
+
+    @Benchmark
+    public boolean hasXWon() {
+        return Ai.hasXWon(states[index++ & MASK]);
+    }
+
+    @Benchmark
+    public boolean hasOWon() {
+        return Ai.hasOWon(states[index++ & MASK]);
+    }
+
+    @Benchmark
+    public boolean isDraw() {
+        return Ai.isDraw(states[index++ & MASK]);
+    }
+}
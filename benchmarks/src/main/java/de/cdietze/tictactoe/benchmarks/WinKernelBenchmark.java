@@ -0,0 +1,45 @@
+package de.cdietze.tictactoe.benchmarks;
+
+import de.cdietze.tictactoe.engine.ScalarWinKernel;
+import de.cdietze.tictactoe.engine.WinKernel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * States per second of the scalar {@link WinKernel}, the baseline of {@link VectorWinKernelBenchmark}. Every operation
+ * is one state, so the throughput is directly in states per second. This fork runs without the incubating vector
+ * module, like the scalar kernel does in production.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WinKernelBenchmark {
+
+    private static final int BATCH_SIZE = 1 << 16;
+
+    private WinKernel winKernel;
+    private int[] states;
+    private int[] results;
+
+    @Setup
+    public void setup() {
+        winKernel = createKernel();
+        states = SampleStates.random(BATCH_SIZE, 42);
+        results = new int[BATCH_SIZE];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int[] classify() {
+        winKernel.classify(states, 0, BATCH_SIZE, results);
+        return results;
+    }
+
+    WinKernel createKernel() {
+        return new ScalarWinKernel();
+    }
+}
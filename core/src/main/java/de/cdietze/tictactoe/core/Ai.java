@@ -1,14 +1,6 @@
 package de.cdietze.tictactoe.core;
 
 import com.google.common.base.Optional;
-import com.google.common.collect.ComparisonChain;
-import com.google.common.collect.Ordering;
-import com.google.common.primitives.Ints;
-
-import java.util.ArrayList;
-import java.util.List;
-
-import static de.cdietze.tictactoe.core.Position.toIndex;
 
 /**
  * The board state is encoded in an int:
@@ -19,7 +11,6 @@ public final class Ai {
 
     public static final int emptyState = 0;
     private static final int NINE_BITS = (1 << 9) - 1;
-    private static final int[] LINE_MASKS = buildLines();
 
     private Ai() {
     }
@@ -41,38 +32,72 @@ public final class Ai {
         return isX ? (state | toMask(index)) : (state | toOMask(index));
     }
 
+    /**
+     * Returns the perfect-play result for {@code state}. This is a lookup in a table that is filled on first use, so it
+     * costs the same no matter how far the game has progressed.
+     */
     public static EvalResult eval(int state) {
-        return eval(state, isXToMove(state), 0);
+        return PackedResult.toEvalResult(SolvedTable.lookup(state));
+    }
+
+    /**
+     * Returns the perfect-play result of every legal move of {@code state} at once. The results come from the same
+     * table as {@link #eval(int)}, so this costs nine lookups no matter how far the game has progressed.
+     */
+    public static Analysis analyze(int state) {
+        return Analysis.of(state);
+    }
+
+    public static EvalResult eval(int state, Strategy strategy) {
+        switch (strategy) {
+            case TABLE:
+                return eval(state);
+            case MINIMAX:
+                return minimax(state);
+            case ALPHA_BETA:
+                return new AlphaBeta().eval(state);
+            default:
+                throw new AssertionError("Unknown strategy: " + strategy);
+        }
     }
 
-    private static EvalResult eval(int state, boolean isXToMove, int depth) {
-        // Actually only the player that just moved can have one, so there is room for optimization here
-        if (hasXWon(state)) return EvalResult.create(isXToMove ? 100 : -100, -1, depth);
-        if (hasOWon(state)) return EvalResult.create(isXToMove ? -100 : 100, -1, depth);
-        if (isDraw(state)) return EvalResult.create(0, -1, depth);
+    /**
+     * Runs a full minimax search from {@code state}. Much slower than {@link #eval(int)}, it is kept as the reference
+     * implementation.
+     */
+    public static EvalResult minimax(int state) {
+        return PackedResult.toEvalResult(minimax(state, isXToMove(state), 0));
+    }
+
+    /**
+     * Returns a {@link PackedResult}, so the search itself allocates nothing.
+     */
+    private static int minimax(int state, boolean isXToMove, int depth) {
+        if (hasXWon(state)) return PackedResult.pack(isXToMove ? 100 : -100, -1, depth);
+        if (hasOWon(state)) return PackedResult.pack(isXToMove ? -100 : 100, -1, depth);
+        if (isDraw(state)) return PackedResult.pack(0, -1, depth);
+        return minimaxMoves(state, isXToMove, depth);
+    }
+
+    /**
+     * Searches the moves of a running game. Only the player who just moved can have won, so every child is checked
+     * through its last move alone.
+     */
+    private static int minimaxMoves(int state, boolean isXToMove, int depth) {
         int occupiedFieldMask = (state >> 9) | state;
-        List<EvalResult> results = new ArrayList<>();
+        int bestResult = PackedResult.NONE;
         for (int i = 0; i < 9; i++) {
             if (isBitSet(occupiedFieldMask, i)) continue;
             int newState = setField(state, i, isXToMove);
-            EvalResult result = eval(newState, !isXToMove, depth + 1).negateRating().moveIndex(i);
-            results.add(result);
+            int result;
+            if (hasWonWithMove(newState, i, isXToMove)) result = PackedResult.pack(100, i, depth + 1);
+            else if (isDraw(newState)) result = PackedResult.pack(0, i, depth + 1);
+            else result = PackedResult.negateRating(minimaxMoves(newState, !isXToMove, depth + 1), i);
+            if (bestResult == PackedResult.NONE || PackedResult.compare(result, bestResult) > 0) bestResult = result;
         }
-        EvalResult bestResult = resultOrdering.max(results);
         return bestResult;
     }
 
-    private static Ordering<EvalResult> resultOrdering = new Ordering<EvalResult>() {
-        @Override
-        public int compare(EvalResult left, EvalResult right) {
-            return ComparisonChain.start() //
-                    .compare(left.rating, right.rating) //
-                    // If we're about to win, favor fewer moves and vice versa
-                    .compare(left.rating > 0 ? -left.depth : left.depth, right.rating > 0 ? -right.depth : right.depth) //
-                    .result();
-        }
-    };
-
     public static boolean isXToMove(int state) {
         int xCount = Integer.bitCount(state & NINE_BITS);
         int oCount = Integer.bitCount(state & (NINE_BITS << 9));
@@ -80,17 +105,27 @@ public final class Ai {
     }
 
     public static boolean hasXWon(int state) {
-        for (int lineMask : LINE_MASKS) {
-            if (hasMask(state, lineMask)) return true;
-        }
-        return false;
+        return Lines.isWinning(state & NINE_BITS);
     }
 
     public static boolean hasOWon(int state) {
-        for (int lineMask : LINE_MASKS) {
-            if (hasMask(state, lineMask << 9)) return true;
-        }
-        return false;
+        return Lines.isWinning((state >> 9) & NINE_BITS);
+    }
+
+    /**
+     * Whether the given player has a complete line through field {@code index}. Cheaper than {@link #hasXWon(int)}
+     * and {@link #hasOWon(int)} when {@code index} was the last move, because that player is the only one who can
+     * have just won.
+     */
+    public static boolean hasWonWithMove(int state, int index, boolean isX) {
+        return Lines.completesLine(isX ? state & NINE_BITS : (state >> 9) & NINE_BITS, index);
+    }
+
+    /**
+     * The eight winning lines as 9-bit field masks, bit {@code index(x, y)} is field {@code (x, y)}. Returns a copy.
+     */
+    public static int[] lineMasks() {
+        return Lines.LINE_MASKS.clone();
     }
 
     public static boolean isDraw(int state) {
@@ -149,34 +184,19 @@ public final class Ai {
         return (state & mask) == mask;
     }
 
-    @SuppressWarnings("Duplicates")
-    private static int[] buildLines() {
-        List<Integer> list = new ArrayList<>();
-        for (int y = 0; y < 3; y++) {
-            int row = 0;
-            row |= toMask(toIndex(0, y));
-            row |= toMask(toIndex(1, y));
-            row |= toMask(toIndex(2, y));
-            list.add(row);
-        }
-        for (int x = 0; x < 3; x++) {
-            int col = 0;
-            col |= toMask(toIndex(x, 0));
-            col |= toMask(toIndex(x, 1));
-            col |= toMask(toIndex(x, 2));
-            list.add(col);
-        }
-        int diag1 = 0;
-        diag1 |= toMask(toIndex(0, 0));
-        diag1 |= toMask(toIndex(1, 1));
-        diag1 |= toMask(toIndex(2, 2));
-        list.add(diag1);
-        int diag2 = 0;
-        diag2 |= toMask(toIndex(0, 2));
-        diag2 |= toMask(toIndex(1, 1));
-        diag2 |= toMask(toIndex(2, 0));
-        list.add(diag2);
-        return Ints.toArray(list);
+    public enum Strategy {
+        /**
+         * Looks up the lazily solved table, see {@link #eval(int)}.
+         */
+        TABLE,
+        /**
+         * Exhaustive search, see {@link #minimax(int)}.
+         */
+        MINIMAX,
+        /**
+         * Pruned search, see {@link AlphaBeta}.
+         */
+        ALPHA_BETA
     }
 
     public enum Field {
@@ -0,0 +1,196 @@
+package de.cdietze.tictactoe.core;
+
+import playn.core.Platform;
+import react.Closeable;
+import react.Slot;
+import react.Value;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Runs AI searches off the game thread and hands the results back to it.
+ * <p>
+ * Searches run via {@link playn.core.Exec#invokeAsync} where the platform has background threads (JVM, Android,
+ * iOS). Elsewhere (HTML) they are deferred to the next frame with {@link playn.core.Exec#invokeLater}, so at least
+ * the input handler that triggered them returns first. Results are always delivered on the game thread.
+ * <p>
+ * A search is cancelled when another one is requested, on {@link #cancel()} and on {@link #close()}. The search
+ * itself still runs to completion, but its result is dropped.
+ * <p>
+ * While the opponent of the AI is thinking, {@link #ponder(int)} searches the replies to each of their possible moves
+ * in the background. When the next request is for one of those positions, its result is delivered on the next frame
+ * without another search.
+ */
+public class AiService implements Closeable {
+
+    /**
+     * How long the last delivered search took on the background thread, in milliseconds.
+     */
+    public final Value<Double> searchMillis = Value.create(0.0);
+    /**
+     * The time from the last delivered request to its result on the game thread, in milliseconds. This includes
+     * {@link #searchMillis} and the wait for the next frame.
+     */
+    public final Value<Double> latencyMillis = Value.create(0.0);
+    /**
+     * Requests after {@link #ponder(int)} that were answered from the pondered results.
+     */
+    public final Value<Integer> ponderHits = Value.create(0);
+    /**
+     * Requests after {@link #ponder(int)} that still needed a search, because pondering had not reached their position
+     * yet.
+     */
+    public final Value<Integer> ponderMisses = Value.create(0);
+    /**
+     * The total search time of all ponder hits, in milliseconds: the latency pondering has saved.
+     */
+    public final Value<Double> savedMillis = Value.create(0.0);
+
+    private final Platform plat;
+    private int generation;
+    private boolean closed;
+    /**
+     * Stops the searches of an outdated {@link #ponder(int)} call. Read by the background threads.
+     */
+    private volatile int ponderGeneration;
+    private boolean isPondering;
+    /**
+     * The pondered results of the current {@link #ponder(int)} call, keyed by the state after the opponent's move.
+     * Only accessed on the game thread.
+     */
+    private final Map<Integer, PonderedResult> ponderedResults = new HashMap<>();
+
+    public AiService(Platform plat) {
+        this.plat = plat;
+    }
+
+    /**
+     * Searches {@code state} in the background and emits the result to {@code onResult} on the game thread, unless the
+     * request has been cancelled by then. Must be called on the game thread.
+     */
+    public void requestMove(final int state, final Slot<Ai.EvalResult> onResult) {
+        if (closed) return;
+        final int requestGeneration = ++generation;
+        final double requestTime = plat.time();
+        PonderedResult pondered = isPondering ? ponderedResults.get(state) : null;
+        if (isPondering) {
+            if (pondered != null) {
+                ponderHits.update(ponderHits.get() + 1);
+                savedMillis.update(savedMillis.get() + pondered.searchMillis);
+            } else {
+                ponderMisses.update(ponderMisses.get() + 1);
+            }
+        }
+        stopPondering();
+        if (pondered != null) {
+            deliver(requestGeneration, requestTime, 0.0, pondered.result, onResult);
+            return;
+        }
+        runInBackground(new Runnable() {
+            @Override
+            public void run() {
+                double startTime = plat.time();
+                Ai.EvalResult result = Ai.eval(state);
+                deliver(requestGeneration, requestTime, plat.time() - startTime, result, onResult);
+            }
+        });
+    }
+
+    /**
+     * Searches the AI's reply to every move the opponent can make in {@code state}, until the next request or call
+     * to this method. Must be called on the game thread.
+     */
+    public void ponder(int state) {
+        stopPondering();
+        if (closed || isFinished(state)) return;
+        isPondering = true;
+        final int requestGeneration = ponderGeneration;
+        boolean isXToMove = Ai.isXToMove(state);
+        for (int i = 0; i < Position.FIELD_COUNT; i++) {
+            if (Ai.getField(state, i) != Ai.Field.EMPTY) continue;
+            final int reply = Ai.setField(state, i, isXToMove);
+            if (isFinished(reply)) continue;
+            runInBackground(new Runnable() {
+                @Override
+                public void run() {
+                    if (requestGeneration != ponderGeneration) return;
+                    double startTime = plat.time();
+                    final Ai.EvalResult result = Ai.eval(reply);
+                    final double searchTime = plat.time() - startTime;
+                    plat.exec().invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (requestGeneration != ponderGeneration || closed) return;
+                            ponderedResults.put(reply, new PonderedResult(result, searchTime));
+                        }
+                    });
+                }
+            });
+        }
+    }
+
+    /**
+     * The share of requests after {@link #ponder(int)} that were answered from the pondered results.
+     */
+    public double ponderHitRate() {
+        int requests = ponderHits.get() + ponderMisses.get();
+        return requests == 0 ? 0.0 : ponderHits.get() / (double) requests;
+    }
+
+    /**
+     * Drops the result of the pending search, if any.
+     */
+    public void cancel() {
+        ++generation;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        cancel();
+        stopPondering();
+    }
+
+    private void stopPondering() {
+        ++ponderGeneration;
+        isPondering = false;
+        ponderedResults.clear();
+    }
+
+    private void runInBackground(Runnable search) {
+        if (plat.exec().isAsyncSupported()) plat.exec().invokeAsync(search);
+        else plat.exec().invokeLater(search);
+    }
+
+    /**
+     * Emits {@code result} on the next frame, unless the request has been cancelled by then. Safe to call from any
+     * thread.
+     */
+    private void deliver(final int requestGeneration, final double requestTime, final double searchTime,
+                         final Ai.EvalResult result, final Slot<Ai.EvalResult> onResult) {
+        plat.exec().invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                if (requestGeneration != generation || closed) return;
+                searchMillis.update(searchTime);
+                latencyMillis.update(plat.time() - requestTime);
+                onResult.onEmit(result);
+            }
+        });
+    }
+
+    private static boolean isFinished(int state) {
+        return Ai.hasXWon(state) || Ai.hasOWon(state) || Ai.isDraw(state);
+    }
+
+    private static final class PonderedResult {
+        final Ai.EvalResult result;
+        final double searchMillis;
+
+        PonderedResult(Ai.EvalResult result, double searchMillis) {
+            this.result = result;
+            this.searchMillis = searchMillis;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package de.cdietze.tictactoe.core;
+
+/**
+ * Negamax search with alpha-beta pruning.
+ * <p>
+ * Rating and depth are folded into a single score: a win at ply {@code d} scores {@code WIN - d}, a loss
+ * {@code d - WIN} and a draw 0. Larger scores are better, so faster wins and slower losses are preferred just like in
+ * {@link Ai#minimax(int)}. Draws need no depth tie-break because they only happen on a full board.
+ * <p>
+ * The last move that raised alpha at a ply is tried first in every position at that ply (a killer move), since a move
+ * that was good in a sibling position is often good here too. At the root every move is searched with a window that
+ * keeps its score exact whenever it could replace the current best, so equal scores are broken by the lowest move
+ * index, again like {@link Ai#minimax(int)}.
+ * <p>
+ * With a {@link TranspositionTable}, positions below the root are looked up before they are searched, and the stored
+ * best move replaces the killer move. Entries are full-depth results, so a table can be reused across calls to
+ * {@link #eval(int)}.
+ */
+public final class AlphaBeta {
+
+    private static final int WIN = 1000;
+    private static final int INFINITY = WIN + 1;
+
+    /**
+     * The last move that raised alpha at each ply, or -1.
+     */
+    private final int[] killerMoves = new int[10];
+    private final TranspositionTable transpositionTable;
+    private long nodeCount;
+
+    public AlphaBeta() {
+        this(null);
+    }
+
+    /**
+     * @param transpositionTable the cache to use, or {@code null} to search without one
+     */
+    public AlphaBeta(TranspositionTable transpositionTable) {
+        this.transpositionTable = transpositionTable;
+        clearKillerMoves();
+    }
+
+    public Ai.EvalResult eval(int state) {
+        nodeCount = 0;
+        clearKillerMoves();
+        boolean isXToMove = Ai.isXToMove(state);
+        int score = terminalScore(state, isXToMove, 0);
+        if (score != INFINITY) {
+            ++nodeCount;
+            return toEvalResult(state, score, -1);
+        }
+        int occupiedFieldMask = (state >> 9) | state;
+        int bestScore = -INFINITY, bestMove = -1;
+        for (int n = 0; n < 9; n++) {
+            int i = moveAt(n, occupiedFieldMask, -1);
+            if (i < 0) continue;
+            int lowerBound = bestMove < 0 ? -INFINITY : (i < bestMove ? bestScore - 1 : bestScore);
+            int childScore = -search(Ai.setField(state, i, isXToMove), !isXToMove, 1, i, -INFINITY, -lowerBound);
+            if (childScore > lowerBound && (childScore > bestScore || i < bestMove)) {
+                bestScore = childScore;
+                bestMove = i;
+            }
+        }
+        ++nodeCount;
+        return toEvalResult(state, bestScore, bestMove);
+    }
+
+    /**
+     * The number of nodes visited by the last call to {@link #eval(int)}.
+     */
+    public long nodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @param lastMove the move that led to {@code state}; only the player who made it can have won
+     */
+    private int search(int state, boolean isXToMove, int ply, int lastMove, int alpha, int beta) {
+        ++nodeCount;
+        if (Ai.hasWonWithMove(state, lastMove, !isXToMove)) return ply - WIN;
+        if (Ai.isDraw(state)) return 0;
+        int firstMove = killerMoves[ply];
+        int symmetry = 0;
+        if (transpositionTable != null) {
+            symmetry = Symmetry.canonicalSymmetry(state);
+            int entry = transpositionTable.probe(state, symmetry);
+            if (entry != TranspositionTable.NONE) {
+                int entryScore = fromRelativeScore(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT) return entryScore;
+                if (bound == TranspositionTable.LOWER_BOUND && entryScore >= beta) return entryScore;
+                if (bound == TranspositionTable.UPPER_BOUND && entryScore <= alpha) return entryScore;
+                if (TranspositionTable.move(entry) >= 0) firstMove = TranspositionTable.move(entry);
+            }
+        }
+        int originalAlpha = alpha;
+        int occupiedFieldMask = (state >> 9) | state;
+        int bestScore = -INFINITY, bestMove = -1;
+        for (int n = 0; n < 9; n++) {
+            int i = moveAt(n, occupiedFieldMask, firstMove);
+            if (i < 0) continue;
+            int childScore = -search(Ai.setField(state, i, isXToMove), !isXToMove, ply + 1, i, -beta, -alpha);
+            if (childScore <= bestScore) continue;
+            bestScore = childScore;
+            bestMove = i;
+            if (childScore <= alpha) continue;
+            alpha = childScore;
+            killerMoves[ply] = i;
+            if (alpha >= beta) break;
+        }
+        if (transpositionTable != null) {
+            int bound = bestScore <= originalAlpha ? TranspositionTable.UPPER_BOUND
+                    : bestScore >= beta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+            transpositionTable.store(state, symmetry, toRelativeScore(bestScore, ply), bound, bestMove);
+        }
+        return bestScore;
+    }
+
+    /**
+     * Converts a score counted from the root into one counted from the position at {@code ply}.
+     */
+    private static int toRelativeScore(int score, int ply) {
+        return score > 0 ? score + ply : (score < 0 ? score - ply : 0);
+    }
+
+    private static int fromRelativeScore(int score, int ply) {
+        return score > 0 ? score - ply : (score < 0 ? score + ply : 0);
+    }
+
+    /**
+     * Returns the {@code n}th move to try or -1 if that field is occupied. {@code firstMove} comes first, unless it is
+     * -1, followed by the remaining fields in index order.
+     */
+    private static int moveAt(int n, int occupiedFieldMask, int firstMove) {
+        int i;
+        if (firstMove < 0) i = n;
+        else if (n == 0) i = firstMove;
+        else i = n <= firstMove ? n - 1 : n;
+        return (occupiedFieldMask & (1 << i)) != 0 ? -1 : i;
+    }
+
+    private static int terminalScore(int state, boolean isXToMove, int ply) {
+        if (Ai.hasXWon(state)) return isXToMove ? WIN - ply : ply - WIN;
+        if (Ai.hasOWon(state)) return isXToMove ? ply - WIN : WIN - ply;
+        if (Ai.isDraw(state)) return 0;
+        return INFINITY;
+    }
+
+    private static Ai.EvalResult toEvalResult(int state, int score, int bestMove) {
+        if (score > 0) return Ai.EvalResult.create(100, bestMove, WIN - score);
+        if (score < 0) return Ai.EvalResult.create(-100, bestMove, WIN + score);
+        // A draw is only reached on a full board
+        int occupiedFieldMask = ((state >> 9) | state) & ((1 << 9) - 1);
+        return Ai.EvalResult.create(0, bestMove, 9 - Integer.bitCount(occupiedFieldMask));
+    }
+
+    private void clearKillerMoves() {
+        for (int i = 0; i < killerMoves.length; i++) killerMoves[i] = -1;
+    }
+}
@@ -0,0 +1,63 @@
+package de.cdietze.tictactoe.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The perfect-play result of every legal move of a state, see {@link Ai#analyze(int)}.
+ * <p>
+ * Ratings are those of the player to move and depths count the moves until the end of the game including the analyzed
+ * move, just like {@link Ai.EvalResult}. The best move has the same rating and depth as {@link Ai#eval(int)}.
+ */
+public final class Analysis {
+
+    public final int state;
+    /**
+     * A {@link PackedResult} per field, {@link PackedResult#NONE} for fields that can't be marked.
+     */
+    private final int[] results = new int[Position.FIELD_COUNT];
+
+    private Analysis(int state) {
+        this.state = state;
+    }
+
+    static Analysis of(int state) {
+        Analysis analysis = new Analysis(state);
+        if (Ai.hasXWon(state) || Ai.hasOWon(state) || Ai.isDraw(state)) return analysis;
+        boolean isXToMove = Ai.isXToMove(state);
+        int occupiedFieldMask = (state >> 9) | state;
+        for (int i = 0; i < Position.FIELD_COUNT; i++) {
+            if ((occupiedFieldMask & (1 << i)) != 0) continue;
+            analysis.results[i] = SolvedTable.lookupMove(state, i, isXToMove);
+        }
+        return analysis;
+    }
+
+    /**
+     * Whether field {@code index} can be marked. There are no legal moves once the game is over.
+     */
+    public boolean isLegal(int index) {
+        return results[index] != PackedResult.NONE;
+    }
+
+    public int rating(int index) {
+        checkArgument(isLegal(index), "Field %s is not a legal move", index);
+        return PackedResult.rating(results[index]);
+    }
+
+    public int depth(int index) {
+        checkArgument(isLegal(index), "Field %s is not a legal move", index);
+        return PackedResult.depth(results[index]);
+    }
+
+    /**
+     * The first of the best moves like {@link Ai#eval(int)} picks it, or -1 if the game is over.
+     */
+    public int bestMoveIndex() {
+        int best = PackedResult.NONE;
+        for (int result : results) {
+            if (result == PackedResult.NONE) continue;
+            if (best == PackedResult.NONE || PackedResult.compare(result, best) > 0) best = result;
+        }
+        return PackedResult.bestMoveIndex(best);
+    }
+}
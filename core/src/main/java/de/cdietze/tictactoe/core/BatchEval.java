@@ -0,0 +1,117 @@
+package de.cdietze.tictactoe.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Evaluates many states in the {@link Ai} encoding at once and writes the results into primitive arrays, so no
+ * {@link Ai.EvalResult} is created per state.
+ * <p>
+ * With {@link Ai.Strategy#TABLE}, every state is a lookup in the perfect-play table, which already holds each result
+ * only once, and the results are exactly those of {@link Ai#eval(int)}. The searching strategies run one search per
+ * {@link Symmetry#canonical(int) canonical} state of a batch; repeated states are recognized before they are even
+ * canonicalized. Ratings and depths are those of {@link Ai#eval(int, Ai.Strategy)}. The best move is the one of the
+ * canonical state mapped back to the original board, so where several moves are equally good it can differ from the
+ * one a single search picks.
+ * <p>
+ * Instances keep a table with an entry per 18-bit state and are not thread-safe.
+ */
+public final class BatchEval {
+
+    public final Ai.Strategy strategy;
+
+    /**
+     * The {@link PackedResult}s of the states seen in the current batch in the low 16 bits, tagged with the batch
+     * generation in the high 16 bits. One table read tells whether a state was seen and what its result is. Only
+     * used by the searching strategies.
+     */
+    private final int[] entries;
+    private final AlphaBeta alphaBeta;
+    private int generation;
+    private int searchCount;
+
+    public BatchEval() {
+        this(Ai.Strategy.TABLE);
+    }
+
+    public BatchEval(Ai.Strategy strategy) {
+        this.strategy = strategy;
+        this.entries = strategy == Ai.Strategy.TABLE ? null : new int[1 << 18];
+        // Transposition table entries are full-depth results, so they stay valid across the searches of all batches
+        this.alphaBeta = strategy == Ai.Strategy.ALPHA_BETA ? new AlphaBeta(new TranspositionTable()) : null;
+    }
+
+    /**
+     * Evaluates all of {@code states}, see {@link #eval(int[], int, int, int[], int[], int[])}.
+     */
+    public void eval(int[] states, int[] ratings, int[] bestMoves, int[] depths) {
+        eval(states, 0, states.length, ratings, bestMoves, depths);
+    }
+
+    /**
+     * Evaluates {@code states[from]} up to {@code states[to - 1]} and writes the results into the same positions of
+     * {@code ratings}, {@code bestMoves} and {@code depths}.
+     */
+    public void eval(int[] states, int from, int to, int[] ratings, int[] bestMoves, int[] depths) {
+        checkArgument(0 <= from && from <= to && to <= states.length, "Invalid range [%s, %s)", from, to);
+        checkArgument(ratings.length >= to && bestMoves.length >= to && depths.length >= to,
+                "Output arrays are shorter than %s", to);
+        searchCount = 0;
+        boolean isTable = strategy == Ai.Strategy.TABLE;
+        if (!isTable) nextGeneration();
+        for (int n = from; n < to; n++) {
+            int packed = isTable ? SolvedTable.lookup(states[n]) : lookup(states[n]);
+            ratings[n] = PackedResult.rating(packed);
+            bestMoves[n] = PackedResult.bestMoveIndex(packed);
+            depths[n] = PackedResult.depth(packed);
+        }
+    }
+
+    /**
+     * The number of searches run by the last batch, one per distinct canonical state. Always 0 with
+     * {@link Ai.Strategy#TABLE}.
+     */
+    public int searchCount() {
+        return searchCount;
+    }
+
+    private int lookup(int state) {
+        int tag = generation << 16;
+        int entry = entries[state];
+        if ((entry & 0xFFFF0000) == tag) return entry & 0xFFFF;
+        int symmetry = Symmetry.canonicalSymmetry(state);
+        int canonical = Symmetry.transform(symmetry, state);
+        int canonicalEntry = entries[canonical];
+        int canonicalPacked;
+        if ((canonicalEntry & 0xFFFF0000) == tag) {
+            canonicalPacked = canonicalEntry & 0xFFFF;
+        } else {
+            canonicalPacked = search(canonical);
+            entries[canonical] = tag | canonicalPacked;
+            ++searchCount;
+        }
+        int packed = canonicalPacked;
+        int move = PackedResult.bestMoveIndex(canonicalPacked);
+        if (move >= 0) {
+            packed = PackedResult.pack(PackedResult.rating(canonicalPacked), Symmetry.unmapIndex(symmetry, move),
+                    PackedResult.depth(canonicalPacked));
+        }
+        entries[state] = tag | packed;
+        return packed;
+    }
+
+    private int search(int state) {
+        Ai.EvalResult result = strategy == Ai.Strategy.ALPHA_BETA ? alphaBeta.eval(state) : Ai.minimax(state);
+        return PackedResult.pack(result.rating, result.bestMoveIndex, result.depth);
+    }
+
+    /**
+     * Starts a new batch without clearing the table, except when the 16-bit generation wraps around.
+     */
+    private void nextGeneration() {
+        generation = (generation + 1) & 0xFFFF;
+        if (generation == 0) {
+            for (int i = 0; i < entries.length; i++) entries[i] = 0;
+            generation = 1;
+        }
+    }
+}
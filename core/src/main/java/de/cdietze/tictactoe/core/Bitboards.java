@@ -0,0 +1,98 @@
+package de.cdietze.tictactoe.core;
+
+/**
+ * Operations on bitboards stored in {@code long[]}, least significant word first. All methods write into arrays
+ * passed by the caller and allocate nothing.
+ */
+final class Bitboards {
+
+    private Bitboards() {
+    }
+
+    static int wordCount(int bitCount) {
+        return (bitCount + 63) >>> 6;
+    }
+
+    static boolean isSet(long[] board, int bit) {
+        return (board[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    static void set(long[] board, int bit) {
+        board[bit >>> 6] |= 1L << bit;
+    }
+
+    static void clear(long[] board, int bit) {
+        board[bit >>> 6] &= ~(1L << bit);
+    }
+
+    static boolean isEmpty(long[] board) {
+        for (long word : board) {
+            if (word != 0) return false;
+        }
+        return true;
+    }
+
+    static int bitCount(long[] board) {
+        int count = 0;
+        for (long word : board) count += Long.bitCount(word);
+        return count;
+    }
+
+    /**
+     * {@code dst = src >>> shift}, so bit {@code p} of {@code dst} is bit {@code p + shift} of {@code src}.
+     */
+    static void shiftRight(long[] src, int shift, long[] dst) {
+        int wordShift = shift >>> 6, bitShift = shift & 63;
+        for (int i = 0; i < dst.length; i++) {
+            int lowIndex = i + wordShift;
+            long low = lowIndex < src.length ? src[lowIndex] : 0;
+            if (bitShift == 0) {
+                dst[i] = low;
+            } else {
+                long high = lowIndex + 1 < src.length ? src[lowIndex + 1] : 0;
+                dst[i] = (low >>> bitShift) | (high << (64 - bitShift));
+            }
+        }
+    }
+
+    /**
+     * {@code dst = src << shift}, so bit {@code p} of {@code dst} is bit {@code p - shift} of {@code src}. Bits shifted
+     * past the last word are dropped.
+     */
+    static void shiftLeft(long[] src, int shift, long[] dst) {
+        int wordShift = shift >>> 6, bitShift = shift & 63;
+        for (int i = dst.length - 1; i >= 0; i--) {
+            int highIndex = i - wordShift;
+            long high = highIndex >= 0 && highIndex < src.length ? src[highIndex] : 0;
+            if (bitShift == 0) {
+                dst[i] = high;
+            } else {
+                long low = highIndex - 1 >= 0 && highIndex - 1 < src.length ? src[highIndex - 1] : 0;
+                dst[i] = (high << bitShift) | (low >>> (64 - bitShift));
+            }
+        }
+    }
+
+    /**
+     * Whether {@code board} has {@code length} set bits in a row with distance {@code step}. Runs are found by
+     * shift-and-mask: after each round bit {@code p} of {@code run} tells whether a run of the current length starts at
+     * {@code p}, and the length at least doubles per round.
+     */
+    static boolean hasRun(long[] board, int step, int length, long[] run, long[] shifted) {
+        if (length <= 1) return !isEmpty(board);
+        System.arraycopy(board, 0, run, 0, board.length);
+        int runLength = 1;
+        while (runLength < length) {
+            int extension = Math.min(runLength, length - runLength);
+            shiftRight(run, extension * step, shifted);
+            boolean any = false;
+            for (int i = 0; i < run.length; i++) {
+                run[i] &= shifted[i];
+                any |= run[i] != 0;
+            }
+            if (!any) return false;
+            runLength += extension;
+        }
+        return true;
+    }
+}
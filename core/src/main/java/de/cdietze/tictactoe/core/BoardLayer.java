@@ -0,0 +1,147 @@
+package de.cdietze.tictactoe.core;
+
+import de.cdietze.playn_util.TextureCache;
+import playn.core.Canvas;
+import playn.core.Surface;
+import playn.core.Texture;
+import playn.core.Tile;
+import playn.scene.Layer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Paints a whole board in one pass, one world unit per field: the field backgrounds, the marks and the hints.
+ * <p>
+ * The marks are read from the packed {@link BoardState#aiState()} on every frame and drawn from a single atlas, with
+ * the X in the left half and the O in the right half. The atlas comes from a {@link TextureCache} at the size the
+ * marks have on screen in device pixels, and is only looked up again when that size changes. The layer holds a
+ * reference to one atlas at a time and releases it when the size changes or the layer is closed. The backgrounds are
+ * drawn first and the marks after them, so each stays in one batch of quads instead of switching textures from field
+ * to field. Fields are found by dividing the pointer position instead of hit-testing a layer per field, see
+ * {@link #fieldAt(float, float)}.
+ */
+public class BoardLayer extends Layer {
+
+    public static final int COLUMNS = 3;
+    public static final int ROWS = 3;
+
+    /**
+     * The size of a mark relative to its field.
+     */
+    private static final float MARK_SIZE = .8f;
+    /**
+     * The height of a hint relative to its field.
+     */
+    private static final float HINT_HEIGHT = .35f;
+
+    private static final String MARK_ATLAS = "marks";
+    private static final TextureCache.Painter MARK_ATLAS_PAINTER = new TextureCache.Painter() {
+        @Override
+        public void paint(Canvas canvas) {
+            float size = markSize(canvas.width, canvas.height);
+            float margin = .1f * size;
+            canvas.setStrokeColor(0xff222222);
+            canvas.setStrokeWidth(size / 20);
+            canvas.drawLine(margin, margin, size - margin, size - margin);
+            canvas.drawLine(size - margin, margin, margin, size - margin);
+            canvas.strokeCircle(size + size / 2, size / 2, .45f * size);
+        }
+    };
+
+    private final BoardState boardState;
+    private final int[] fieldColors;
+    private final TextureCache textures;
+    private final Tile[] hints = new Tile[Position.FIELD_COUNT];
+    private Texture markAtlas;
+    /**
+     * The size of a mark on screen in device pixels that {@link #markAtlas} was looked up for.
+     */
+    private float markAtlasSize;
+
+    /**
+     * @param fieldColors the background color of each field
+     */
+    public BoardLayer(BoardState boardState, int[] fieldColors, TextureCache textures) {
+        checkArgument(fieldColors.length == Position.FIELD_COUNT, "Need a color per field: %s", fieldColors.length);
+        this.boardState = boardState;
+        this.fieldColors = fieldColors;
+        this.textures = textures;
+    }
+
+    @Override
+    public float width() {
+        return COLUMNS;
+    }
+
+    @Override
+    public float height() {
+        return ROWS;
+    }
+
+    /**
+     * Shows {@code hint} centered on a field, or nothing if it is {@code null}.
+     */
+    public void setHint(int fieldIndex, Tile hint) {
+        hints[fieldIndex] = hint;
+    }
+
+    /**
+     * The index of the field at a position in this layer, or -1 if the position is outside of the board.
+     */
+    public int fieldAt(float x, float y) {
+        if (x < 0 || y < 0 || x >= COLUMNS || y >= ROWS) return -1;
+        return Position.toIndex((int) x, (int) y);
+    }
+
+    @Override
+    protected void paintImpl(Surface surf) {
+        for (int i = 0; i < Position.FIELD_COUNT; i++) {
+            surf.setFillColor(fieldColors[i]).fillRect(i % COLUMNS, i / COLUMNS, 1, 1);
+        }
+        // The surface transform starts with the scale of the render target, so this is in device pixels
+        float screenMarkSize = MARK_SIZE * surf.tx().uniformScale();
+        if (screenMarkSize > 0) paintMarks(surf, screenMarkSize);
+        for (int i = 0; i < Position.FIELD_COUNT; i++) {
+            Tile hint = hints[i];
+            if (hint == null) continue;
+            float width = HINT_HEIGHT * hint.width() / hint.height();
+            surf.draw(hint, i % COLUMNS + (1 - width) / 2, i / COLUMNS + (1 - HINT_HEIGHT) / 2, width, HINT_HEIGHT);
+        }
+    }
+
+    private void paintMarks(Surface surf, float screenMarkSize) {
+        if (markAtlas == null || screenMarkSize != markAtlasSize) {
+            Texture previous = markAtlas;
+            markAtlas = textures.get(MARK_ATLAS, 2 * screenMarkSize, screenMarkSize, MARK_ATLAS_PAINTER);
+            markAtlasSize = screenMarkSize;
+            // Released after taking the new reference, so an atlas of the same rounded size is not redrawn
+            if (previous != null) previous.release();
+        }
+        float size = markSize(markAtlas.width(), markAtlas.height());
+        float inset = (1 - MARK_SIZE) / 2;
+        int state = boardState.aiState();
+        for (int i = 0; i < Position.FIELD_COUNT; i++) {
+            Ai.Field field = Ai.getField(state, i);
+            if (field == Ai.Field.EMPTY) continue;
+            float sx = field == Ai.Field.X ? 0 : size;
+            surf.draw(markAtlas, i % COLUMNS + inset, i / COLUMNS + inset, MARK_SIZE, MARK_SIZE, sx, 0, size, size);
+        }
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        if (markAtlas != null) {
+            markAtlas.release();
+            markAtlas = null;
+        }
+    }
+
+    /**
+     * The size of each of the two marks in an atlas. Rounding the atlas size can leave a little room to the right or at
+     * the bottom.
+     */
+    private static float markSize(float atlasWidth, float atlasHeight) {
+        return Math.min(atlasWidth / 2, atlasHeight);
+    }
+}
@@ -3,27 +3,28 @@ package de.cdietze.tictactoe.core;
 import de.cdietze.playn_util.ColorUtils;
 import de.cdietze.playn_util.ScaledElement;
 import de.cdietze.playn_util.Screen;
-import playn.core.Canvas;
-import playn.core.Image;
+import playn.core.Font;
 import playn.core.Sound;
-import playn.scene.GroupLayer;
-import playn.scene.ImageLayer;
+import playn.core.TextFormat;
+import playn.core.Texture;
 import playn.scene.Layer;
 import playn.scene.Pointer;
 import pythagoras.f.Dimension;
 import pythagoras.f.IDimension;
 import react.Slot;
+import react.Value;
 import react.Values;
 import tripleplay.ui.*;
 import tripleplay.ui.layout.AxisLayout;
 import tripleplay.ui.layout.BorderLayout;
-import tripleplay.util.Layers;
 
 import java.util.Iterator;
 
 public class BoardScreen extends Screen {
 
     private final MainGame game;
+    private final AiService aiService = new AiService(plat);
+    private final Value<Boolean> showHints = Value.create(false);
 
     public BoardScreen(MainGame game) {
         super(game);
@@ -47,6 +48,29 @@ public class BoardScreen extends Screen {
         root.setSize(viewSize);
 
         root.add(boardElement.setConstraint(BorderLayout.CENTER));
+        Group buttons = new Group(AxisLayout.horizontal());
+        buttons.add(new Button("Undo").onClick(new Slot<Button>() {
+            @Override
+            public void onEmit(Button event) {
+                undoHumanMove(boardState);
+            }
+        }));
+        buttons.add(new Button("Hints").onClick(new Slot<Button>() {
+            @Override
+            public void onEmit(Button event) {
+                showHints.update(!showHints.get());
+            }
+        }));
+        root.add(buttons.setConstraint(BorderLayout.SOUTH));
+
+        aiService.latencyMillis.connect(new Slot<Double>() {
+            @Override
+            public void onEmit(Double latency) {
+                plat.log().debug("AI answered after " + latency + "ms, searched for " + aiService.searchMillis.get()
+                        + "ms, ponder hit rate " + aiService.ponderHitRate() + ", saved " + aiService.savedMillis.get()
+                        + "ms");
+            }
+        });
 
         boardState.gameState.connectNotify(new Slot<BoardState.GameState>() {
             @Override
@@ -58,6 +82,14 @@ public class BoardScreen extends Screen {
         });
     }
 
+    @Override
+    public void wasRemoved() {
+        super.wasRemoved();
+        aiService.close();
+        // The screen stack only detaches the layer, closing it releases the textures of the board
+        layer.close();
+    }
+
     private Group createGameOverPanel(BoardState boardState) {
         /** Use the colors from {@link SimpleStyles} */
         int bgColor = 0xFFCCCCCC, ulColor = 0xFFEEEEEE, brColor = 0xFFAAAAAA;
@@ -89,96 +121,101 @@ public class BoardScreen extends Screen {
         Values.and(boardState.isOAi, Values.not(boardState.isXToMove)).connectNotify(new Slot<Boolean>() {
             @Override
             public void onEmit(Boolean event) {
-                if (!event) return;
-                int state = Ai.emptyState;
-                for (int i = 0; i < 9; i++) {
-                    BoardState.FieldType fieldType = boardState.fieldValue(i).get();
-                    if (fieldType == BoardState.FieldType.EMPTY) continue;
-                    state = Ai.setField(state, i, fieldType == BoardState.FieldType.X);
-                }
-                Ai.EvalResult result = Ai.eval(state);
-                if (result.bestMoveIndex >= 0) {
-                    boardState.tryToMark(result.bestMoveIndex);
+                if (!event) {
+                    ponderIfHumanToMove(boardState);
+                    return;
                 }
+                final int state = boardState.aiState();
+                aiService.requestMove(state, new Slot<Ai.EvalResult>() {
+                    @Override
+                    public void onEmit(Ai.EvalResult result) {
+                        if (boardState.aiState() != state) return;
+                        if (result.bestMoveIndex >= 0) {
+                            boardState.tryToMark(result.bestMoveIndex);
+                        }
+                    }
+                });
             }
         });
     }
 
+    /**
+     * Goes back to the previous position where the human was to move, which also takes back the AI's reply or
+     * abandons its search.
+     */
+    private void undoHumanMove(BoardState boardState) {
+        if (!boardState.canUndo()) return;
+        int ply = boardState.ply.get();
+        int targetPly = boardState.isOAi.get() && !isAiToMove(boardState) ? ply - 2 : ply - 1;
+        boardState.jumpToPly(Math.max(targetPly, 0));
+        // The side to move may not have changed, so the AI listener does not fire
+        ponderIfHumanToMove(boardState);
+    }
+
+    /**
+     * Lets the AI search its replies while the human is thinking.
+     */
+    private void ponderIfHumanToMove(BoardState boardState) {
+        if (!boardState.isOAi.get() || isAiToMove(boardState)) return;
+        if (boardState.gameState.get() != BoardState.GameState.RUNNING) return;
+        aiService.ponder(boardState.aiState());
+    }
+
+    private static boolean isAiToMove(BoardState boardState) {
+        return boardState.isOAi.get() && !boardState.isXToMove.get();
+    }
+
     private final class Board {
-        public final GroupLayer layer = new GroupLayer();
+        public final BoardLayer layer;
 
         public Board(final BoardState boardState) {
-            layer.setSize(3, 3).setOrigin(Layer.Origin.CENTER);
+            int[] fieldColors = new int[Position.FIELD_COUNT];
             Iterator<Integer> colorGenerator = ColorUtils.uniqueColorGenerator(0f, .5f, .7f);
-            for (int y = 0; y < 3; y++) {
-                for (int x = 0; x < 3; x++) {
-                    final int fieldIndex = Position.toIndex(x, y);
-                    final GroupLayer fieldLayer = new GroupLayer();
-                    fieldLayer.setSize(1, 1);
-                    fieldLayer.events().connect(new Pointer.Listener() {
-                                                    @Override
-                                                    public void onStart(Pointer.Interaction iact) {
-                                                        click1.play();
-                                                        boardState.tryToMark(fieldIndex);
-                                                    }
-                                                }
-                    );
-                    layer.addAt(fieldLayer, x, y);
-                    Layer solid = Layers.solid(colorGenerator.next(), 1, 1);
-                    fieldLayer.add(solid);
-                    boardState.fieldValue(fieldIndex).connectNotify(new Slot<BoardState.FieldType>() {
-                        Layer contentLayer = null;
-
-                        @Override
-                        public void onEmit(BoardState.FieldType fieldType) {
-                            if (contentLayer != null) fieldLayer.remove(contentLayer);
-                            contentLayer = null;
-                            if (fieldType == BoardState.FieldType.EMPTY) return;
-                            contentLayer = fieldType == BoardState.FieldType.X ? xImageLayer() : oImageLayer();
-                            fieldLayer.addAt(contentLayer, .5f, .5f);
-                        }
-                    });
+            for (int i = 0; i < fieldColors.length; i++) fieldColors[i] = colorGenerator.next();
+            layer = new BoardLayer(boardState, fieldColors, game.textures);
+            layer.setOrigin(Layer.Origin.CENTER);
+            layer.events().connect(new Pointer.Listener() {
+                @Override
+                public void onStart(Pointer.Interaction iact) {
+                    int fieldIndex = layer.fieldAt(iact.local.x, iact.local.y);
+                    // The AI is thinking in the background
+                    if (fieldIndex < 0 || isAiToMove(boardState)) return;
+                    click1.play();
+                    boardState.tryToMark(fieldIndex);
                 }
-            }
-        }
-
-        private ImageLayer oImageLayer() {
-            ImageLayer imageLayer = new ImageLayer(circleImage);
-            imageLayer.setSize(.8f, .8f).setOrigin(Layer.Origin.CENTER);
-            return imageLayer;
-        }
-
-        private ImageLayer xImageLayer() {
-            ImageLayer imageLayer = new ImageLayer(crossImage);
-            imageLayer.setSize(.8f, .8f).setOrigin(Layer.Origin.CENTER);
-            return imageLayer;
+            });
+            Slot<Object> hintUpdater = new Slot<Object>() {
+                @Override
+                public void onEmit(Object event) {
+                    updateHints(boardState);
+                }
+            };
+            // Every change of the board changes the ply
+            boardState.ply.connect(hintUpdater);
+            showHints.connect(hintUpdater);
         }
 
-        private Image circleImage = drawCircleImage();
-        private Image crossImage = drawCrossImage();
-
-        private Image drawCircleImage() {
-            float size = 100;
-            float radius = .45f * size;
-            Canvas canvas = plat.graphics().createCanvas(size, size);
-            canvas.setStrokeColor(0xff222222);
-            canvas.setStrokeWidth(size / 20);
-            canvas.strokeCircle(size / 2, size / 2, radius);
-            return canvas.image;
+        /**
+         * Labels every empty field with the result of marking it: {@code +n} wins and {@code -n} loses after
+         * {@code n} more moves, {@code =} draws.
+         */
+        private void updateHints(BoardState boardState) {
+            Analysis analysis = showHints.get() ? Ai.analyze(boardState.aiState()) : null;
+            for (int i = 0; i < Position.FIELD_COUNT; i++) {
+                boolean isVisible = analysis != null && analysis.isLegal(i);
+                layer.setHint(i, isVisible ? hintImage(analysis.rating(i), analysis.depth(i)) : null);
+            }
         }
 
-        private Image drawCrossImage() {
-            float size = 100;
-            float margin = .1f * size;
-            Canvas canvas = plat.graphics().createCanvas(size, size);
-            canvas.setStrokeColor(0xff222222);
-            canvas.setStrokeWidth(size / 20);
-            canvas.drawLine(margin, margin, size - margin, size - margin);
-            canvas.drawLine(size - margin, margin, margin, size - margin);
-            return canvas.image;
+        private Texture hintImage(int rating, int depth) {
+            String text = rating > 0 ? "+" + depth : rating < 0 ? "-" + depth : "=";
+            int color = rating > 0 ? 0xff2e7d32 : rating < 0 ? 0xffc62828 : 0xff555555;
+            return game.textures.text(text, HINT_FORMAT, color);
         }
     }
 
+    private static final TextFormat HINT_FORMAT = new TextFormat(new Font("Helvetica", Font.Style.BOLD, 48));
+
     private Sound click1 = plat.assets().getSound("sounds/click1");
     private Sound click2 = plat.assets().getSound("sounds/click2");
     private Sound gameOver = plat.assets().getSound("sounds/game_over");
@@ -1,6 +1,5 @@
 package de.cdietze.tictactoe.core;
 
-import com.google.common.collect.ImmutableList;
 import react.Value;
 import react.ValueView;
 
@@ -8,7 +7,6 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static com.google.common.base.Preconditions.checkArgument;
-import static de.cdietze.tictactoe.core.Position.toIndex;
 
 public class BoardState {
 
@@ -25,10 +23,28 @@ public class BoardState {
         RUNNING, DRAW, X_WON, O_WON;
     }
 
-    public final List<Value<FieldType>> fields = new ArrayList<>();
+    private static final int ALL_FIELDS_MASK = (1 << Position.FIELD_COUNT) - 1;
+
     public final Value<Boolean> isXToMove = Value.create(true);
     public final Value<GameState> gameState = Value.create(GameState.RUNNING);
     public final Value<Boolean> isOAi = Value.create(false);
+    /**
+     * The number of moves since the start of the history, see {@link #jumpToPly(int)}.
+     */
+    public final Value<Integer> ply = Value.create(0);
+
+    /**
+     * The authoritative board in the {@link Ai} encoding, the field values are derived from it.
+     */
+    private int state = Ai.emptyState;
+    private final List<Value<FieldType>> fields = new ArrayList<>();
+    /**
+     * {@code historyMoves[p]} is the field marked by move {@code p + 1} and {@code historyStates[p]} the board after
+     * {@code p} moves, so restoring any ply is a single read. A game has at most nine moves.
+     */
+    private final int[] historyMoves = new int[Position.FIELD_COUNT];
+    private final int[] historyStates = new int[Position.FIELD_COUNT + 1];
+    private int historyLength;
 
     public BoardState() {
         for (int i = 0; i < Position.FIELD_COUNT; ++i) {
@@ -36,77 +52,127 @@ public class BoardState {
         }
     }
 
+    /**
+     * Emits only when the field itself changes.
+     */
     public ValueView<FieldType> fieldValue(int fieldIndex) {
         return fields.get(fieldIndex);
     }
 
+    /**
+     * The board in the {@link Ai} encoding.
+     */
+    public int aiState() {
+        return state;
+    }
+
     public void tryToMark(int fieldIndex) {
         checkArgument(fieldIndex >= 0 && fieldIndex < 9);
         if (gameState.get() != GameState.RUNNING) return;
-        if (fields.get(fieldIndex).get() != FieldType.EMPTY) return;
-        fields.get(fieldIndex).update(isXToMove.get() ? FieldType.X : FieldType.O);
-        isXToMove.update(!isXToMove.get());
-        gameState.update(calcGameState());
-    }
-
-    private static int toMask(int index) {
-        return 1 << index;
-    }
-
-    private GameState calcGameState() {
-        int xMask = 0, oMask = 0, emptyMask = 0;
-        for (int fieldIndex = 0; fieldIndex < fields.size(); fieldIndex++) {
-            int fieldMask = toMask(fieldIndex);
-            FieldType fieldType = fields.get(fieldIndex).get();
-            switch (fieldType) {
-                case EMPTY:
-                    emptyMask |= fieldMask;
-                    break;
-                case X:
-                    xMask |= fieldMask;
-                    break;
-                case O:
-                    oMask |= fieldMask;
-                    break;
-            }
-        }
-        for (int line : lines) {
-            if ((line & xMask) == line) return GameState.X_WON;
-            if ((line & oMask) == line) return GameState.O_WON;
-        }
-        if (emptyMask == 0) return GameState.DRAW;
-        return GameState.RUNNING;
+        if (Ai.getField(state, fieldIndex) != Ai.Field.EMPTY) return;
+        boolean isX = Ai.isXToMove(state);
+        int newState = Ai.setField(state, fieldIndex, isX);
+        // A new move discards the moves that could have been redone
+        int newPly = ply.get() + 1;
+        historyMoves[newPly - 1] = fieldIndex;
+        historyStates[newPly] = newState;
+        historyLength = newPly;
+        apply(newState, calcGameState(newState, fieldIndex, isX), newPly);
+    }
+
+    /**
+     * Replaces the whole board by {@code newState} in the {@link Ai} encoding and starts a new history from it.
+     */
+    public void setAiState(int newState) {
+        historyStates[0] = newState;
+        historyLength = 0;
+        apply(newState, calcGameState(newState), 0);
+    }
+
+    public boolean canUndo() {
+        return ply.get() > 0;
+    }
+
+    public boolean canRedo() {
+        return ply.get() < historyLength;
+    }
+
+    public void undo() {
+        if (canUndo()) jumpToPly(ply.get() - 1);
     }
 
-    private static final List<Integer> lines = buildLines();
+    public void redo() {
+        if (canRedo()) jumpToPly(ply.get() + 1);
+    }
+
+    /**
+     * Restores the board after {@code targetPly} moves of the history, from 0 up to {@link #historyLength()}. The
+     * moves stay in the history until a new move replaces them, so jumping back and forth is cheap enough to scrub
+     * through a game every frame. Only the fields that differ from the current board are notified.
+     */
+    public void jumpToPly(int targetPly) {
+        checkArgument(targetPly >= 0 && targetPly <= historyLength, "Ply %s is not in the history", targetPly);
+        int newState = historyStates[targetPly];
+        apply(newState, calcGameState(newState), targetPly);
+    }
+
+    /**
+     * The number of moves in the history, including the ones that can be redone.
+     */
+    public int historyLength() {
+        return historyLength;
+    }
+
+    /**
+     * The field marked by move {@code moveIndex}, counting from 0.
+     */
+    public int historyMove(int moveIndex) {
+        checkArgument(moveIndex >= 0 && moveIndex < historyLength, "Move %s is not in the history", moveIndex);
+        return historyMoves[moveIndex];
+    }
 
-    @SuppressWarnings("Duplicates")
-    private static List<Integer> buildLines() {
-        ImmutableList.Builder<Integer> builder = ImmutableList.builder();
-        for (int y = 0; y < 3; y++) {
-            int row = 0;
-            row |= toMask(toIndex(0, y));
-            row |= toMask(toIndex(1, y));
-            row |= toMask(toIndex(2, y));
-            builder.add(row);
+    /**
+     * Switches to {@code newState} and notifies the fields that differ from the current board in field order, then
+     * the ply and the game state.
+     */
+    private void apply(int newState, GameState newGameState, int newPly) {
+        int changed = ((state ^ newState) | ((state ^ newState) >> 9)) & ALL_FIELDS_MASK;
+        state = newState;
+        while (changed != 0) {
+            int fieldIndex = Integer.numberOfTrailingZeros(changed);
+            changed &= changed - 1;
+            fields.get(fieldIndex).update(toFieldType(Ai.getField(newState, fieldIndex)));
         }
-        for (int x = 0; x < 3; x++) {
-            int col = 0;
-            col |= toMask(toIndex(x, 0));
-            col |= toMask(toIndex(x, 1));
-            col |= toMask(toIndex(x, 2));
-            builder.add(col);
+        ply.update(newPly);
+        // Update the game state first, the AI reacts to isXToMove and may mark right away
+        gameState.update(newGameState);
+        isXToMove.update(Ai.isXToMove(newState));
+    }
+
+    private static FieldType toFieldType(Ai.Field field) {
+        switch (field) {
+            case X:
+                return FieldType.X;
+            case O:
+                return FieldType.O;
+            default:
+                return FieldType.EMPTY;
         }
-        int diag1 = 0;
-        diag1 |= toMask(toIndex(0, 0));
-        diag1 |= toMask(toIndex(1, 1));
-        diag1 |= toMask(toIndex(2, 2));
-        builder.add(diag1);
-        int diag2 = 0;
-        diag2 |= toMask(toIndex(0, 2));
-        diag2 |= toMask(toIndex(1, 1));
-        diag2 |= toMask(toIndex(2, 0));
-        builder.add(diag2);
-        return builder.build();
+    }
+
+    /**
+     * Only the player who just marked {@code fieldIndex} can have won.
+     */
+    private static GameState calcGameState(int state, int fieldIndex, boolean isX) {
+        if (Ai.hasWonWithMove(state, fieldIndex, isX)) return isX ? GameState.X_WON : GameState.O_WON;
+        if (Ai.isDraw(state)) return GameState.DRAW;
+        return GameState.RUNNING;
+    }
+
+    private static GameState calcGameState(int state) {
+        if (Ai.hasXWon(state)) return GameState.X_WON;
+        if (Ai.hasOWon(state)) return GameState.O_WON;
+        if (Ai.isDraw(state)) return GameState.DRAW;
+        return GameState.RUNNING;
     }
 }
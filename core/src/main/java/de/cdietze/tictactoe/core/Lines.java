@@ -0,0 +1,78 @@
+package de.cdietze.tictactoe.core;
+
+import static de.cdietze.tictactoe.core.Position.toIndex;
+
+/**
+ * Lookup tables for the eight winning lines, working on 9-bit field masks (bit {@code i} is field {@code i}).
+ */
+final class Lines {
+
+    static final int[] LINE_MASKS = buildLines();
+    /**
+     * {@code CELL_LINES[i]} holds the two to four lines that run through field {@code i}.
+     */
+    private static final int[][] CELL_LINES = buildCellLines();
+    /**
+     * {@code WINNING_MASKS[mask]} tells whether {@code mask} contains a complete line.
+     */
+    private static final boolean[] WINNING_MASKS = buildWinningMasks();
+
+    private Lines() {
+    }
+
+    static boolean isWinning(int mask) {
+        return WINNING_MASKS[mask];
+    }
+
+    /**
+     * Whether {@code mask} has a complete line through field {@code index}. Only the player who just moved can have
+     * won, so checking the lines through the last move is enough.
+     */
+    static boolean completesLine(int mask, int index) {
+        for (int line : CELL_LINES[index]) {
+            if ((mask & line) == line) return true;
+        }
+        return false;
+    }
+
+    private static int toMask(int index) {
+        return 1 << index;
+    }
+
+    private static int[] buildLines() {
+        int[] lines = new int[8];
+        for (int i = 0; i < 3; i++) {
+            lines[i] = toMask(toIndex(0, i)) | toMask(toIndex(1, i)) | toMask(toIndex(2, i));
+            lines[3 + i] = toMask(toIndex(i, 0)) | toMask(toIndex(i, 1)) | toMask(toIndex(i, 2));
+        }
+        lines[6] = toMask(toIndex(0, 0)) | toMask(toIndex(1, 1)) | toMask(toIndex(2, 2));
+        lines[7] = toMask(toIndex(0, 2)) | toMask(toIndex(1, 1)) | toMask(toIndex(2, 0));
+        return lines;
+    }
+
+    private static int[][] buildCellLines() {
+        int[][] cellLines = new int[Position.FIELD_COUNT][];
+        for (int i = 0; i < Position.FIELD_COUNT; i++) {
+            int count = 0;
+            for (int line : LINE_MASKS) {
+                if ((line & toMask(i)) != 0) count++;
+            }
+            cellLines[i] = new int[count];
+            count = 0;
+            for (int line : LINE_MASKS) {
+                if ((line & toMask(i)) != 0) cellLines[i][count++] = line;
+            }
+        }
+        return cellLines;
+    }
+
+    private static boolean[] buildWinningMasks() {
+        boolean[] winning = new boolean[1 << Position.FIELD_COUNT];
+        for (int mask = 0; mask < winning.length; mask++) {
+            for (int line : LINE_MASKS) {
+                if ((mask & line) == line) winning[mask] = true;
+            }
+        }
+        return winning;
+    }
+}
@@ -1,5 +1,6 @@
 package de.cdietze.tictactoe.core;
 
+import de.cdietze.playn_util.TextureCache;
 import playn.core.Image;
 import playn.core.Platform;
 import playn.scene.ImageLayer;
@@ -22,6 +23,11 @@ public class MainGame extends SceneGame {
         }
     };
 
+    /**
+     * Generated images shared by all screens, so starting a new game draws and uploads nothing.
+     */
+    public final TextureCache textures = new TextureCache(plat.graphics());
+
     public MainGame(Platform plat) {
         super(plat, 33); // update our "simulation" 33ms (30 times per second)
 
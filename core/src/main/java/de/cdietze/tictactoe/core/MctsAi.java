@@ -0,0 +1,283 @@
+package de.cdietze.tictactoe.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Monte Carlo tree search with UCT for boards where {@link MnkAi} cannot search deep enough.
+ * <p>
+ * The tree lives in a flat arena of parallel {@code int[]}s indexed by node, and the children of a node are allocated
+ * next to each other when it is expanded. Once the arena is full, the tree stops growing and the remaining iterations
+ * only add playouts below its leaves. Moves are made and undone on the searched {@link MnkState}, and playouts pick
+ * random empty fields from a scratch array, so a search allocates nothing but its result.
+ * <p>
+ * A search is bounded by {@link SearchLimits#maxNodes}, counted in playouts, and {@link SearchLimits#maxMillis}; the
+ * depth limit does not apply. The best move is the most visited child of the root. The rating is only 100 or -100 if
+ * the side to move has won or lost already, the win rate of the best move is in {@link #bestMoveWinRate()}.
+ * <p>
+ * Instances keep the tree and scratch state and are not thread-safe.
+ */
+public final class MctsAi {
+
+    public static final int DEFAULT_CAPACITY = 1 << 18;
+
+    /**
+     * The exploration constant of UCT, the usual {@code sqrt(2)} for rewards between 0 and 1.
+     */
+    private static final double EXPLORATION = 1.4142135623730951;
+    private static final int UNEXPANDED = -1;
+    /**
+     * Rewards are counted in half points, so they stay integers: 2 for a win, 1 for a draw.
+     */
+    private static final int WIN_REWARD = 2;
+    private static final int DRAW_REWARD = 1;
+
+    public final MnkGame game;
+
+    /**
+     * The bit of the move that leads to each node.
+     */
+    private final int[] moveBits;
+    private final int[] firstChildren;
+    private final int[] childCounts;
+    private final int[] visits;
+    /**
+     * The sum of the rewards of the player who made the move leading to each node.
+     */
+    private final int[] rewards;
+    private int size;
+
+    /**
+     * The nodes from the root down to the current leaf.
+     */
+    private final int[] path;
+    /**
+     * The moves made on the state during an iteration, undone at its end.
+     */
+    private final int[] madeBits;
+    private int madeCount;
+    private final int[] emptyBits;
+    private int seed;
+
+    public MctsAi(MnkGame game) {
+        this(game, DEFAULT_CAPACITY, 0x2545F491);
+    }
+
+    /**
+     * @param capacity the maximum number of nodes in the tree
+     * @param seed     the seed of the random playouts, searches with the same seed and node budget are repeatable
+     */
+    public MctsAi(MnkGame game, int capacity, int seed) {
+        checkArgument(capacity > game.fieldCount(), "capacity must hold the root and its children: %s", capacity);
+        checkArgument(seed != 0, "seed must not be 0");
+        this.game = game;
+        this.moveBits = new int[capacity];
+        this.firstChildren = new int[capacity];
+        this.childCounts = new int[capacity];
+        this.visits = new int[capacity];
+        this.rewards = new int[capacity];
+        this.path = new int[game.fieldCount() + 1];
+        this.madeBits = new int[game.fieldCount()];
+        this.emptyBits = new int[game.fieldCount()];
+        this.seed = seed;
+    }
+
+    /**
+     * Runs playouts until a limit of {@code limits} is reached. {@link SearchResult#nodeCount} is the number of
+     * playouts and {@link SearchResult#completedDepth} the depth of the tree. {@code state} is left unchanged.
+     */
+    public SearchResult search(MnkState state, SearchLimits limits) {
+        long startMillis = System.currentTimeMillis();
+        long deadline = limits.maxMillis == Long.MAX_VALUE ? Long.MAX_VALUE : startMillis + limits.maxMillis;
+        if (state.hasXWon() || state.hasOWon() || state.isFull()) {
+            int rating = state.hasXWon() ? 100 : state.hasOWon() ? -100 : 0;
+            if (!state.isXToMove()) rating = -rating;
+            return new SearchResult(Ai.EvalResult.create(rating, -1, 0), 0, true, 0,
+                    System.currentTimeMillis() - startMillis);
+        }
+        reset();
+        boolean isRootXToMove = state.isXToMove();
+        long playouts = 0;
+        int treeDepth = 0;
+        while (playouts < limits.maxNodes && ((playouts & 255) != 0 || System.currentTimeMillis() < deadline)) {
+            treeDepth = Math.max(treeDepth, iterate(state, isRootXToMove));
+            ++playouts;
+        }
+        int bestChild = bestRootChild();
+        Ai.EvalResult result = Ai.EvalResult.create(0, game.toIndex(moveBits[bestChild]), treeDepth);
+        return new SearchResult(result, treeDepth, false, playouts, System.currentTimeMillis() - startMillis);
+    }
+
+    /**
+     * The share of the rewards of the best move of the last search, between 0 for a certain loss and 1 for a certain
+     * win. Draws count half.
+     */
+    public double bestMoveWinRate() {
+        int bestChild = bestRootChild();
+        return visits[bestChild] == 0 ? 0.5 : rewards[bestChild] / (double) (WIN_REWARD * visits[bestChild]);
+    }
+
+    /**
+     * The number of nodes in the tree of the last search.
+     */
+    public int treeSize() {
+        return size;
+    }
+
+    private void reset() {
+        size = 1;
+        moveBits[0] = -1;
+        firstChildren[0] = UNEXPANDED;
+        childCounts[0] = 0;
+        visits[0] = 0;
+        rewards[0] = 0;
+    }
+
+    /**
+     * One iteration: selection, expansion, playout and backpropagation. Returns the depth of the reached tree node.
+     */
+    private int iterate(MnkState state, boolean isRootXToMove) {
+        int node = 0;
+        int depth = 0;
+        madeCount = 0;
+        boolean isXToMove = isRootXToMove;
+        // The player who won, as +1 for X and -1 for O, or 0 for a draw or an ongoing game
+        int winner = 0;
+        boolean isOver = false;
+        path[0] = 0;
+        while (!isOver) {
+            if (firstChildren[node] == UNEXPANDED) {
+                // A leaf: expand it on its second visit, the root right away
+                if (node != 0 && visits[node] == 0) break;
+                if (!expand(node, state)) break;
+            }
+            node = selectChild(node);
+            int bit = moveBits[node];
+            state.setBit(bit, isXToMove);
+            madeBits[madeCount++] = bit;
+            path[++depth] = node;
+            if (state.hasWonWithBit(bit, isXToMove)) {
+                winner = isXToMove ? 1 : -1;
+                isOver = true;
+            } else if (state.isFull()) {
+                isOver = true;
+            }
+            isXToMove = !isXToMove;
+        }
+        if (!isOver) winner = playout(state, isXToMove);
+        for (int i = madeCount - 1; i >= 0; i--) state.clearBit(madeBits[i]);
+        backpropagate(depth, isRootXToMove, winner);
+        return depth;
+    }
+
+    /**
+     * Adds a child for every empty field, in field order. Returns false if the arena has no room left.
+     */
+    private boolean expand(int node, MnkState state) {
+        int emptyCount = collectEmptyBits(state);
+        if (size + emptyCount > moveBits.length) return false;
+        firstChildren[node] = size;
+        childCounts[node] = emptyCount;
+        for (int i = 0; i < emptyCount; i++) {
+            int child = size++;
+            moveBits[child] = emptyBits[i];
+            firstChildren[child] = UNEXPANDED;
+            childCounts[child] = 0;
+            visits[child] = 0;
+            rewards[child] = 0;
+        }
+        return true;
+    }
+
+    /**
+     * UCT: the first unvisited child, otherwise the child with the highest upper confidence bound.
+     */
+    private int selectChild(int node) {
+        int first = firstChildren[node];
+        int end = first + childCounts[node];
+        double logParentVisits = Math.log(visits[node]);
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = first; child < end; child++) {
+            int childVisits = visits[child];
+            if (childVisits == 0) return child;
+            double value = rewards[child] / (double) (WIN_REWARD * childVisits)
+                    + EXPLORATION * Math.sqrt(logParentVisits / childVisits);
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Plays random moves until someone wins or the board is full, appending them to {@link #madeBits}. Returns the
+     * winner like {@link #iterate(MnkState, boolean)} tracks it.
+     */
+    private int playout(MnkState state, boolean isXToMove) {
+        int emptyCount = collectEmptyBits(state);
+        while (emptyCount > 0) {
+            int i = nextInt(emptyCount);
+            int bit = emptyBits[i];
+            emptyBits[i] = emptyBits[--emptyCount];
+            state.setBit(bit, isXToMove);
+            madeBits[madeCount++] = bit;
+            if (state.hasWonWithBit(bit, isXToMove)) return isXToMove ? 1 : -1;
+            isXToMove = !isXToMove;
+        }
+        return 0;
+    }
+
+    private void backpropagate(int depth, boolean isRootXToMove, int winner) {
+        for (int d = 0; d <= depth; d++) {
+            int node = path[d];
+            ++visits[node];
+            if (d == 0) continue;
+            // The root's children are moves of the root player, their children moves of the opponent and so on
+            boolean isMoverX = (d & 1) == 1 ? isRootXToMove : !isRootXToMove;
+            if (winner == 0) {
+                rewards[node] += DRAW_REWARD;
+            } else if ((winner > 0) == isMoverX) {
+                rewards[node] += WIN_REWARD;
+            }
+        }
+    }
+
+    private int bestRootChild() {
+        int first = firstChildren[0];
+        int end = first + childCounts[0];
+        int best = first;
+        for (int child = first + 1; child < end; child++) {
+            if (visits[child] > visits[best]) best = child;
+        }
+        return best;
+    }
+
+    /**
+     * Fills {@link #emptyBits} with the empty fields in field order and returns their count.
+     */
+    private int collectEmptyBits(MnkState state) {
+        int count = 0;
+        long[] fieldsMask = game.fieldsMask;
+        for (int word = 0; word < fieldsMask.length; word++) {
+            long empty = fieldsMask[word] & ~(state.xBoard[word] | state.oBoard[word]);
+            while (empty != 0) {
+                emptyBits[count++] = (word << 6) + Long.numberOfTrailingZeros(empty);
+                empty &= empty - 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * xorshift32: cheap, allocation-free and repeatable for a given seed.
+     */
+    private int nextInt(int bound) {
+        int x = seed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        seed = x;
+        return (x >>> 1) % bound;
+    }
+}
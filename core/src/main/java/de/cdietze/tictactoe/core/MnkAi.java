@@ -0,0 +1,362 @@
+package de.cdietze.tictactoe.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Negamax search with alpha-beta pruning for any {@link MnkGame}.
+ * <p>
+ * Scores follow {@link AlphaBeta}: a win at ply {@code d} scores {@code WIN - d}, a loss {@code d - WIN} and a draw 0.
+ * Positions at the depth limit are scored by {@link MnkEvaluator}, whose scores stay far away from wins and losses.
+ * Results are reported like {@link Ai#eval(int)}, with the best move as a field index and a rating of 0 when the
+ * search could not see a forced result. Moves are generated from the bitboards and made and undone on the searched
+ * {@link MnkState}, so the search allocates nothing.
+ * <p>
+ * With a {@link SharedTranspositionTable}, inner nodes are cached by the hash of their position and their best move is
+ * tried first. Results from deeper searches answer shallower ones, so depth-limited ratings can differ from a search
+ * without a table. {@link #eval(MnkState, int)} and {@link #search(MnkState, SearchLimits)} start a new generation of
+ * the table, {@link #scoreMove(MnkState, int, int, int)} doesn't, so instances sharing a table on several threads
+ * take part in the same search.
+ * <p>
+ * Instances keep scratch state and are not thread-safe.
+ */
+public final class MnkAi {
+
+    static final int WIN = 1 << 20;
+    static final int INFINITY = WIN + 1;
+    /**
+     * A lower bound below every score.
+     */
+    public static final int NO_BOUND = -INFINITY;
+
+    /**
+     * The most nodes the threat search before an iterative deepening search may take.
+     */
+    static final long MAX_THREAT_NODES = 20000;
+
+    public final MnkGame game;
+
+    /**
+     * Consulted before every {@link #search(MnkState, SearchLimits)}, or {@code null}.
+     */
+    private final OpeningBook book;
+    /**
+     * Caches the results of inner nodes, possibly shared with other instances, or {@code null}.
+     */
+    private final SharedTranspositionTable table;
+    /**
+     * Created by the first {@link #search(MnkState, SearchLimits)}, {@link #eval(MnkState, int)} does not use it.
+     */
+    private ThreatSearch threatSearch;
+    /**
+     * The move that last raised alpha at each ply, tried first at that ply.
+     */
+    private final int[] pvBits;
+    private final int[] rootBits;
+    private int rootBestBit;
+    private long nodeCount;
+    private long maxNodes;
+    private long deadline;
+    private boolean canAbort;
+    private boolean aborted;
+
+    public MnkAi(MnkGame game) {
+        this(game, null);
+    }
+
+    /**
+     * @param book the results to play in the positions it knows instead of searching, or {@code null}
+     */
+    public MnkAi(MnkGame game, OpeningBook book) {
+        this(game, book, null);
+    }
+
+    /**
+     * @param book  the results to play in the positions it knows instead of searching, or {@code null}
+     * @param table the transposition table to use, or {@code null} to search without one
+     */
+    public MnkAi(MnkGame game, OpeningBook book, SharedTranspositionTable table) {
+        checkArgument(book == null || (book.game.width == game.width && book.game.height == game.height
+                && book.game.k == game.k), "Book of %s can't be used for %s", book == null ? null : book.game, game);
+        this.game = game;
+        this.book = book;
+        this.table = table;
+        this.pvBits = new int[game.fieldCount() + 1];
+        this.rootBits = new int[game.fieldCount()];
+    }
+
+    /**
+     * Searches until the end of the game. Only feasible for small boards.
+     */
+    public Ai.EvalResult eval(MnkState state) {
+        return eval(state, game.fieldCount());
+    }
+
+    /**
+     * Searches exactly {@code maxDepth} moves ahead. {@code state} is left unchanged.
+     */
+    public Ai.EvalResult eval(MnkState state, int maxDepth) {
+        start(Long.MAX_VALUE, Long.MAX_VALUE);
+        if (table != null) table.newSearch();
+        if (isFinished(state) || maxDepth <= 0) return toEvalResult(state, terminalScore(state), -1, maxDepth);
+        int score = searchRoot(state, maxDepth, collectRootMoves(state));
+        return toEvalResult(state, score, game.toIndex(rootBestBit), maxDepth);
+    }
+
+    /**
+     * Iterative deepening: searches one move deeper per iteration until a limit is reached or the result is certain.
+     * The first iteration always completes, so there is always a move. The moves of an iteration are ordered by the
+     * previous one. {@code state} is left unchanged.
+     * <p>
+     * A {@link ThreatSearch} with a quarter of the budget runs first. If it finds a forced win, that is the result, even
+     * if a faster win exists, and its nodes count towards the budget either way. Before both, positions in the
+     * {@link OpeningBook} are answered from the book without searching.
+     */
+    public SearchResult search(MnkState state, SearchLimits limits) {
+        long startMillis = System.currentTimeMillis();
+        long deadline = limits.maxMillis == Long.MAX_VALUE ? Long.MAX_VALUE : startMillis + limits.maxMillis;
+        start(limits.maxNodes, deadline);
+        if (table != null) table.newSearch();
+        if (isFinished(state)) {
+            return new SearchResult(toEvalResult(state, terminalScore(state), -1, 0), 0, true, nodeCount,
+                    System.currentTimeMillis() - startMillis);
+        }
+        Ai.EvalResult bookResult = book == null ? null : book.lookup(state);
+        if (bookResult != null) {
+            boolean isSolved = Math.abs(bookResult.rating) == 100
+                    || bookResult.depth >= game.fieldCount() - state.markCount();
+            return new SearchResult(bookResult, bookResult.depth, isSolved, nodeCount,
+                    System.currentTimeMillis() - startMillis);
+        }
+        if (threatSearch == null) threatSearch = new ThreatSearch(game);
+        SearchResult threats = threatSearch.search(state, threatLimits(limits));
+        nodeCount += threats.nodeCount;
+        if (threats.isSolved) {
+            return new SearchResult(threats.result, threats.completedDepth, true, nodeCount,
+                    System.currentTimeMillis() - startMillis);
+        }
+        int emptyCount = game.fieldCount() - state.markCount();
+        int maxDepth = Math.min(limits.maxDepth, emptyCount);
+        int moveCount = collectRootMoves(state);
+        Ai.EvalResult best = null;
+        int completedDepth = 0;
+        boolean isSolved = false;
+        for (int depth = 1; depth <= maxDepth && !isSolved; depth++) {
+            canAbort = depth > 1;
+            int score = searchRoot(state, depth, moveCount);
+            if (aborted) break;
+            completedDepth = depth;
+            best = toEvalResult(state, score, game.toIndex(rootBestBit), depth);
+            moveToFront(rootBestBit, moveCount);
+            isSolved = Math.abs(score) > MnkEvaluator.MAX_SCORE || depth >= emptyCount;
+        }
+        return new SearchResult(best, completedDepth, isSolved, nodeCount, System.currentTimeMillis() - startMillis);
+    }
+
+    /**
+     * A quarter of the budget of {@code limits}, at most {@link #MAX_THREAT_NODES} nodes.
+     */
+    private static SearchLimits threatLimits(SearchLimits limits) {
+        SearchLimits threatLimits = SearchLimits.nodes(Math.max(1, Math.min(limits.maxNodes / 4, MAX_THREAT_NODES)));
+        if (limits.maxMillis == Long.MAX_VALUE) return threatLimits;
+        return threatLimits.withMillis(Math.max(1, limits.maxMillis / 4));
+    }
+
+    /**
+     * Searches the move {@code index} of {@code state} to {@code depth} and returns its score for the player to move,
+     * for use with {@link #toEvalResult(MnkState, int, int, int)}. The score is exact if it is greater than
+     * {@code lowerBound}, otherwise it is only an upper bound. This is the building block to split the root moves
+     * across threads, each with its own instance and a copy of the state. {@code state} is left unchanged.
+     *
+     * @param lowerBound a score to beat, or {@link #NO_BOUND}
+     */
+    public int scoreMove(MnkState state, int index, int depth, int lowerBound) {
+        start(Long.MAX_VALUE, Long.MAX_VALUE);
+        boolean isXToMove = state.isXToMove();
+        int bit = game.toBit(index);
+        state.setBit(bit, isXToMove);
+        int score = -search(state, !isXToMove, 1, depth, -INFINITY, -lowerBound);
+        state.clearBit(bit);
+        return score;
+    }
+
+    /**
+     * The number of nodes visited by the last search.
+     */
+    public long nodeCount() {
+        return nodeCount;
+    }
+
+    private void start(long maxNodes, long deadline) {
+        this.nodeCount = 1;
+        this.maxNodes = maxNodes;
+        this.deadline = deadline;
+        this.canAbort = false;
+        this.aborted = false;
+        for (int i = 0; i < pvBits.length; i++) pvBits[i] = -1;
+    }
+
+    private static boolean isFinished(MnkState state) {
+        return state.hasXWon() || state.hasOWon() || state.isFull();
+    }
+
+    private static int terminalScore(MnkState state) {
+        if (state.hasXWon()) return state.isXToMove() ? WIN : -WIN;
+        if (state.hasOWon()) return state.isXToMove() ? -WIN : WIN;
+        return 0;
+    }
+
+    /**
+     * Fills {@link #rootBits} with the empty fields in index order and returns their count.
+     */
+    private int collectRootMoves(MnkState state) {
+        int count = 0;
+        long[] fieldsMask = game.fieldsMask;
+        for (int word = 0; word < fieldsMask.length; word++) {
+            long empty = fieldsMask[word] & ~(state.xBoard[word] | state.oBoard[word]);
+            while (empty != 0) {
+                rootBits[count++] = (word << 6) + Long.numberOfTrailingZeros(empty);
+                empty &= empty - 1;
+            }
+        }
+        return count;
+    }
+
+    private void moveToFront(int bit, int moveCount) {
+        for (int i = 0; i < moveCount; i++) {
+            if (rootBits[i] != bit) continue;
+            System.arraycopy(rootBits, 0, rootBits, 1, i);
+            rootBits[0] = bit;
+            return;
+        }
+    }
+
+    /**
+     * Every root move is searched with a window that keeps its score exact whenever it could replace the current
+     * best, so equal scores are broken by the lowest field index regardless of the move order.
+     */
+    private int searchRoot(MnkState state, int depth, int moveCount) {
+        boolean isXToMove = state.isXToMove();
+        int bestScore = -INFINITY;
+        rootBestBit = -1;
+        for (int n = 0; n < moveCount && !aborted; n++) {
+            int bit = rootBits[n];
+            int lowerBound = rootBestBit < 0 ? -INFINITY : (bit < rootBestBit ? bestScore - 1 : bestScore);
+            state.setBit(bit, isXToMove);
+            int childScore = -search(state, !isXToMove, 1, depth, -INFINITY, -lowerBound);
+            state.clearBit(bit);
+            if (childScore > lowerBound && !aborted) {
+                bestScore = childScore;
+                rootBestBit = bit;
+            }
+        }
+        return bestScore;
+    }
+
+    private int search(MnkState state, boolean isXToMove, int ply, int depth, int alpha, int beta) {
+        ++nodeCount;
+        if (canAbort && isOverBudget()) aborted = true;
+        if (aborted) return 0;
+        // Only the player who just moved can have won
+        if (state.hasWon(!isXToMove)) return ply - WIN;
+        if (state.isFull()) return 0;
+        if (ply >= depth) return MnkEvaluator.evaluate(state);
+        int firstBit = pvBits[ply];
+        if (table != null) {
+            long entry = table.probe(state.hash());
+            if (entry != SharedTranspositionTable.NONE) {
+                int score = fromTableScore(SharedTranspositionTable.score(entry), ply);
+                int bound = SharedTranspositionTable.bound(entry);
+                if (SharedTranspositionTable.depth(entry) >= depth - ply
+                        && (bound == SharedTranspositionTable.EXACT
+                        || (bound == SharedTranspositionTable.LOWER_BOUND && score >= beta)
+                        || (bound == SharedTranspositionTable.UPPER_BOUND && score <= alpha))) {
+                    return score;
+                }
+                int moveBit = SharedTranspositionTable.moveBit(entry);
+                if (moveBit >= 0) firstBit = moveBit;
+            }
+        }
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestBit = -1;
+        if (firstBit >= 0 && !Bitboards.isSet(state.xBoard, firstBit) && !Bitboards.isSet(state.oBoard, firstBit)) {
+            state.setBit(firstBit, isXToMove);
+            bestScore = -search(state, !isXToMove, ply + 1, depth, -beta, -alpha);
+            state.clearBit(firstBit);
+            if (aborted) return 0;
+            bestBit = firstBit;
+            if (bestScore > alpha) {
+                alpha = bestScore;
+                if (alpha >= beta) return store(state, ply, depth, bestScore, originalAlpha, beta, bestBit);
+            }
+        } else {
+            firstBit = -1;
+        }
+        long[] fieldsMask = game.fieldsMask;
+        for (int word = 0; word < fieldsMask.length; word++) {
+            long empty = fieldsMask[word] & ~(state.xBoard[word] | state.oBoard[word]);
+            while (empty != 0) {
+                int bit = (word << 6) + Long.numberOfTrailingZeros(empty);
+                empty &= empty - 1;
+                if (bit == firstBit) continue;
+                state.setBit(bit, isXToMove);
+                int childScore = -search(state, !isXToMove, ply + 1, depth, -beta, -alpha);
+                state.clearBit(bit);
+                if (aborted) return 0;
+                if (childScore <= bestScore) continue;
+                bestScore = childScore;
+                bestBit = bit;
+                if (childScore <= alpha) continue;
+                alpha = childScore;
+                pvBits[ply] = bit;
+                if (alpha >= beta) return store(state, ply, depth, bestScore, originalAlpha, beta, bestBit);
+            }
+        }
+        return store(state, ply, depth, bestScore, originalAlpha, beta, bestBit);
+    }
+
+    /**
+     * Stores the result of a node in the {@link #table}, if there is one, and returns its score.
+     */
+    private int store(MnkState state, int ply, int depth, int score, int alpha, int beta, int bestBit) {
+        if (table == null) return score;
+        int bound = score <= alpha ? SharedTranspositionTable.UPPER_BOUND
+                : score >= beta ? SharedTranspositionTable.LOWER_BOUND : SharedTranspositionTable.EXACT;
+        table.store(state.hash(), toTableScore(score, ply), bound, depth - ply, bestBit);
+        return score;
+    }
+
+    /**
+     * Wins and losses are scored by their distance from the root, the table stores their distance from the position.
+     */
+    private static int toTableScore(int score, int ply) {
+        if (score > MnkEvaluator.MAX_SCORE) return score + ply;
+        if (score < -MnkEvaluator.MAX_SCORE) return score - ply;
+        return score;
+    }
+
+    private static int fromTableScore(int score, int ply) {
+        if (score > MnkEvaluator.MAX_SCORE) return score - ply;
+        if (score < -MnkEvaluator.MAX_SCORE) return score + ply;
+        return score;
+    }
+
+    /**
+     * The node budget is checked on every node, the clock only every 1024 nodes.
+     */
+    private boolean isOverBudget() {
+        return nodeCount >= maxNodes || ((nodeCount & 1023) == 0 && System.currentTimeMillis() >= deadline);
+    }
+
+    /**
+     * Converts a score of the player to move in {@code state} into a result like {@link #eval(MnkState, int)} returns.
+     */
+    public Ai.EvalResult toEvalResult(MnkState state, int score, int bestMoveIndex, int maxDepth) {
+        if (score > MnkEvaluator.MAX_SCORE) return Ai.EvalResult.create(100, bestMoveIndex, WIN - score);
+        if (score < -MnkEvaluator.MAX_SCORE) return Ai.EvalResult.create(-100, bestMoveIndex, WIN + score);
+        // Neither side can force a win within reach: the game ends in a draw on a full board or is undecided at the
+        // depth limit
+        int emptyCount = game.fieldCount() - state.markCount();
+        return Ai.EvalResult.create(0, bestMoveIndex, Math.min(emptyCount, Math.max(maxDepth, 0)));
+    }
+}
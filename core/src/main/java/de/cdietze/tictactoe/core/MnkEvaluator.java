@@ -0,0 +1,70 @@
+package de.cdietze.tictactoe.core;
+
+/**
+ * Static evaluation for positions at the depth limit of {@link MnkAi}.
+ * <p>
+ * Every window of {@code k} fields (see {@link MnkGame#windows}) that holds marks of only one player is still open for
+ * that player and counts for them, four times as much for every additional mark. The score is the difference from the
+ * point of view of the player to move. It always stays below {@link #MAX_SCORE}, far away from win and loss scores.
+ * <p>
+ * {@link MnkState} keeps the marks of both players per window as a pattern index into {@link MnkGame#patternScores}
+ * and updates the score on every mark it sets or clears, which only touches the windows through that field. Evaluating
+ * a position is then a single read. {@link #scan(MnkState)} computes the same score from scratch.
+ */
+final class MnkEvaluator {
+
+    static final int MAX_SCORE = MnkAi.WIN / 4;
+
+    private MnkEvaluator() {
+    }
+
+    static int evaluate(MnkState state) {
+        return state.evaluate();
+    }
+
+    /**
+     * The score of {@link #evaluate(MnkState)} from a scan over all windows.
+     */
+    static int scan(MnkState state) {
+        MnkGame game = state.game;
+        int[] weights = game.windowWeights;
+        int score = 0;
+        for (int[] window : game.windows) {
+            int xCount = 0, oCount = 0;
+            for (int bit : window) {
+                if (Bitboards.isSet(state.xBoard, bit)) ++xCount;
+                else if (Bitboards.isSet(state.oBoard, bit)) ++oCount;
+            }
+            if (oCount == 0) score += weights[xCount];
+            else if (xCount == 0) score -= weights[oCount];
+        }
+        return state.isXToMove() ? score : -score;
+    }
+
+    /**
+     * The score of a window for X by its pattern {@code xCount * (k + 1) + oCount}: its weight if only one player has
+     * marks in it, positive for X and negative for O, and 0 for empty and blocked windows.
+     */
+    static int[] patternScores(int k, int[] weights) {
+        int[] scores = new int[(k + 1) * (k + 1)];
+        for (int xCount = 0; xCount <= k; xCount++) {
+            for (int oCount = 0; oCount <= k; oCount++) {
+                int score = oCount == 0 ? weights[xCount] : xCount == 0 ? -weights[oCount] : 0;
+                scores[xCount * (k + 1) + oCount] = score;
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * {@code weights[n]} is the value of an open window with {@code n} marks. Weights are capped so that the sum over
+     * all windows stays below {@link #MAX_SCORE}.
+     */
+    static int[] weights(int k, int windowCount) {
+        int[] weights = new int[k + 1];
+        for (int n = 1; n <= k; n++) {
+            weights[n] = (int) Math.min(1L << Math.min(62, 2 * (n - 1)), (MAX_SCORE - 1) / Math.max(1, windowCount));
+        }
+        return weights;
+    }
+}
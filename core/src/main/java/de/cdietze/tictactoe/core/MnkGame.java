@@ -0,0 +1,163 @@
+package de.cdietze.tictactoe.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The rules of an m,n,k-game: players take turns on a {@code width} x {@code height} board and the first to get
+ * {@code k} marks in a row, column or diagonal wins. Tic-tac-toe is the 3,3,3-game.
+ * <p>
+ * Fields are indexed like in {@link Ai}, {@code x + y * width}. Internally each row of a bitboard has one spare bit
+ * after its last field, so a row is {@code width + 1} bits long. That spare bit is always zero, which stops runs of
+ * marks from wrapping around to the next row when a board is shifted.
+ */
+public final class MnkGame {
+
+    public static final MnkGame TIC_TAC_TOE = new MnkGame(3, 3, 3);
+
+    public final int width;
+    public final int height;
+    public final int k;
+
+    final int rowStride;
+    final int bitCount;
+    final int wordCount;
+    /**
+     * The bit distances to the next field to the right, down, down-right and down-left.
+     */
+    final int[] directions;
+    /**
+     * The bits of all fields, without the spare bits.
+     */
+    final long[] fieldsMask;
+    /**
+     * The bits of every line of {@code k} fields, the segments a player can win with.
+     */
+    final int[][] windows;
+    /**
+     * See {@link MnkEvaluator#weights(int, int)}.
+     */
+    final int[] windowWeights;
+    /**
+     * The indices into {@link #windows} of the windows through each bit.
+     */
+    final int[][] cellWindows;
+    /**
+     * See {@link MnkEvaluator#patternScores(int, int[])}.
+     */
+    final int[] patternScores;
+    /**
+     * Random keys to hash positions with, an X key and an O key per bit, see {@link MnkState#hash()}. They come from a
+     * fixed seed, so hashes are the same in every run and can be stored, like in an {@link OpeningBook}.
+     */
+    final long[] zobristKeys;
+
+    public MnkGame(int width, int height, int k) {
+        checkArgument(width > 0 && height > 0, "Invalid board size: %sx%s", width, height);
+        checkArgument(k > 0 && k <= Math.max(width, height), "Invalid k: %s", k);
+        this.width = width;
+        this.height = height;
+        this.k = k;
+        this.rowStride = width + 1;
+        this.bitCount = rowStride * height;
+        this.wordCount = Bitboards.wordCount(bitCount);
+        this.directions = new int[]{1, rowStride, rowStride + 1, rowStride - 1};
+        this.fieldsMask = new long[wordCount];
+        for (int i = 0; i < fieldCount(); i++) Bitboards.set(fieldsMask, toBit(i));
+        this.windows = buildWindows();
+        this.windowWeights = MnkEvaluator.weights(k, windows.length);
+        this.cellWindows = buildCellWindows();
+        this.patternScores = MnkEvaluator.patternScores(k, windowWeights);
+        this.zobristKeys = buildZobristKeys();
+    }
+
+    public int fieldCount() {
+        return width * height;
+    }
+
+    public int index(int x, int y) {
+        return x + y * width;
+    }
+
+    int toBit(int index) {
+        return index + index / width;
+    }
+
+    int toIndex(int bit) {
+        return bit - bit / rowStride;
+    }
+
+    public MnkState newState() {
+        return new MnkState(this);
+    }
+
+    /**
+     * Parses a board in the format of {@link Ai#stringToState(String)}: fields in index order, characters that aren't
+     * a {@link Ai.Field} are skipped.
+     */
+    public MnkState parse(String s) {
+        MnkState state = newState();
+        int fieldIndex = 0;
+        for (int charIndex = 0; charIndex < s.length(); charIndex++) {
+            char c = s.charAt(charIndex);
+            if (c == Ai.Field.X.representation) state.setField(fieldIndex, true);
+            else if (c == Ai.Field.O.representation) state.setField(fieldIndex, false);
+            else if (c != Ai.Field.EMPTY.representation) continue;
+            fieldIndex++;
+        }
+        return state;
+    }
+
+    private int[][] buildWindows() {
+        int[][] steps = {{1, 0}, {0, 1}, {1, 1}, {-1, 1}};
+        int count = 0;
+        int[][] windows = new int[4 * fieldCount()][];
+        for (int[] step : steps) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    int endX = x + (k - 1) * step[0], endY = y + (k - 1) * step[1];
+                    if (endX < 0 || endX >= width || endY >= height) continue;
+                    int[] window = new int[k];
+                    for (int i = 0; i < k; i++) window[i] = toBit(index(x + i * step[0], y + i * step[1]));
+                    windows[count++] = window;
+                }
+            }
+        }
+        int[][] result = new int[count][];
+        System.arraycopy(windows, 0, result, 0, count);
+        return result;
+    }
+
+    private int[][] buildCellWindows() {
+        int[] counts = new int[bitCount];
+        for (int[] window : windows) {
+            for (int bit : window) ++counts[bit];
+        }
+        int[][] cellWindows = new int[bitCount][];
+        for (int bit = 0; bit < bitCount; bit++) cellWindows[bit] = new int[counts[bit]];
+        for (int w = 0; w < windows.length; w++) {
+            for (int bit : windows[w]) cellWindows[bit][--counts[bit]] = w;
+        }
+        return cellWindows;
+    }
+
+    /**
+     * SplitMix64 from a fixed seed. The keys only depend on the bit, not on the board size.
+     */
+    private long[] buildZobristKeys() {
+        long[] keys = new long[2 * bitCount];
+        long seed = 0x7474745A6F627231L;
+        for (int i = 0; i < keys.length; i++) {
+            seed += 0x9E3779B97F4A7C15L;
+            long z = seed;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            keys[i] = z ^ (z >>> 31);
+        }
+        return keys;
+    }
+
+    @Override
+    public String toString() {
+        return "MnkGame{" + width + "x" + height + ", k=" + k + '}';
+    }
+}
@@ -0,0 +1,221 @@
+package de.cdietze.tictactoe.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A mutable position of an {@link MnkGame}, stored as one bitboard per player.
+ * <p>
+ * Unlike the {@link Ai} encoding, fields can be cleared again, so searches make and undo moves on a single instance
+ * instead of copying it. Instances are not thread-safe.
+ */
+public final class MnkState {
+
+    public final MnkGame game;
+
+    final long[] xBoard;
+    final long[] oBoard;
+    private final long[] run;
+    private final long[] shifted;
+    private int xCount;
+    private int oCount;
+    /**
+     * The marks in each of {@link MnkGame#windows} as an index into {@link MnkGame#patternScores}, see
+     * {@link MnkEvaluator}.
+     */
+    private final int[] windowPatterns;
+    /**
+     * The sum of the pattern scores of all windows, for X.
+     */
+    private int score;
+    /**
+     * See {@link #hash()}.
+     */
+    private long hash;
+
+    MnkState(MnkGame game) {
+        this.game = game;
+        this.xBoard = new long[game.wordCount];
+        this.oBoard = new long[game.wordCount];
+        this.run = new long[game.wordCount];
+        this.shifted = new long[game.wordCount];
+        this.windowPatterns = new int[game.windows.length];
+    }
+
+    public MnkState copy() {
+        MnkState copy = new MnkState(game);
+        System.arraycopy(xBoard, 0, copy.xBoard, 0, xBoard.length);
+        System.arraycopy(oBoard, 0, copy.oBoard, 0, oBoard.length);
+        System.arraycopy(windowPatterns, 0, copy.windowPatterns, 0, windowPatterns.length);
+        copy.xCount = xCount;
+        copy.oCount = oCount;
+        copy.score = score;
+        copy.hash = hash;
+        return copy;
+    }
+
+    /**
+     * Converts a tic-tac-toe state from the {@link Ai} encoding.
+     */
+    public static MnkState fromAiState(int aiState) {
+        MnkState state = MnkGame.TIC_TAC_TOE.newState();
+        for (int i = 0; i < 9; i++) {
+            Ai.Field field = Ai.getField(aiState, i);
+            if (field != Ai.Field.EMPTY) state.setField(i, field == Ai.Field.X);
+        }
+        return state;
+    }
+
+    public Ai.Field getField(int index) {
+        int bit = game.toBit(index);
+        if (Bitboards.isSet(xBoard, bit)) return Ai.Field.X;
+        if (Bitboards.isSet(oBoard, bit)) return Ai.Field.O;
+        return Ai.Field.EMPTY;
+    }
+
+    /**
+     * Marks an empty field.
+     */
+    public void setField(int index, boolean isX) {
+        checkArgument(getField(index) == Ai.Field.EMPTY, "Field %s is not empty", index);
+        setBit(game.toBit(index), isX);
+    }
+
+    /**
+     * Clears a marked field, undoing {@link #setField(int, boolean)}.
+     */
+    public void clearField(int index) {
+        clearBit(game.toBit(index));
+    }
+
+    void setBit(int bit, boolean isX) {
+        if (isX) {
+            Bitboards.set(xBoard, bit);
+            ++xCount;
+            updatePatterns(bit, game.k + 1);
+            hash ^= game.zobristKeys[2 * bit];
+        } else {
+            Bitboards.set(oBoard, bit);
+            ++oCount;
+            updatePatterns(bit, 1);
+            hash ^= game.zobristKeys[2 * bit + 1];
+        }
+    }
+
+    void clearBit(int bit) {
+        if (Bitboards.isSet(xBoard, bit)) {
+            Bitboards.clear(xBoard, bit);
+            --xCount;
+            updatePatterns(bit, -(game.k + 1));
+            hash ^= game.zobristKeys[2 * bit];
+        } else if (Bitboards.isSet(oBoard, bit)) {
+            Bitboards.clear(oBoard, bit);
+            --oCount;
+            updatePatterns(bit, -1);
+            hash ^= game.zobristKeys[2 * bit + 1];
+        }
+    }
+
+    /**
+     * Moves the patterns of the windows through {@code bit} by {@code step} and the score along with them.
+     */
+    private void updatePatterns(int bit, int step) {
+        int[] scores = game.patternScores;
+        int delta = 0;
+        for (int window : game.cellWindows[bit]) {
+            int pattern = windowPatterns[window];
+            windowPatterns[window] = pattern + step;
+            delta += scores[pattern + step] - scores[pattern];
+        }
+        score += delta;
+    }
+
+    /**
+     * The heuristic score of this position for the player to move, see {@link MnkEvaluator}. Kept up to date by every
+     * mark that is set or cleared, so this costs the same on any board size.
+     */
+    public int evaluate() {
+        return isXToMove() ? score : -score;
+    }
+
+    /**
+     * A 64-bit Zobrist hash of the marks: the XOR of a random key per marked field and player. Equal positions have
+     * equal hashes no matter the order their moves were made in. Every mark that is set or cleared XORs its key in or
+     * out, so this is free to call on every node of a search.
+     */
+    public long hash() {
+        return hash;
+    }
+
+    public int markCount() {
+        return xCount + oCount;
+    }
+
+    public boolean isXToMove() {
+        return xCount <= oCount;
+    }
+
+    public boolean hasXWon() {
+        return hasWon(xBoard);
+    }
+
+    public boolean hasOWon() {
+        return hasWon(oBoard);
+    }
+
+    public boolean hasWon(boolean isX) {
+        return hasWon(isX ? xBoard : oBoard);
+    }
+
+    /**
+     * Whether the mark on {@code bit} is part of a line of {@code k} marks of the same player. Only walks the four
+     * lines through that field, so this is the cheap check after a move: only the player who just moved can have won.
+     */
+    boolean hasWonWithBit(int bit, boolean isX) {
+        long[] board = isX ? xBoard : oBoard;
+        for (int direction : game.directions) {
+            int count = 1 + countRun(board, bit, direction) + countRun(board, bit, -direction);
+            if (count >= game.k) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Counts the marks next to {@code bit} in one direction. The spare bit at the end of each row stops the walk at
+     * the left and right edges, the range check at the top and bottom.
+     */
+    private int countRun(long[] board, int bit, int step) {
+        int count = 0;
+        for (int b = bit + step; b >= 0 && b < game.bitCount && Bitboards.isSet(board, b); b += step) ++count;
+        return count;
+    }
+
+    public boolean isFull() {
+        return markCount() == game.fieldCount();
+    }
+
+    /**
+     * A full board where nobody has won.
+     */
+    public boolean isDraw() {
+        return isFull() && !hasXWon() && !hasOWon();
+    }
+
+    private boolean hasWon(long[] board) {
+        for (int direction : game.directions) {
+            if (Bitboards.hasRun(board, direction, game.k, run, shifted)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int y = 0; y < game.height; y++) {
+            for (int x = 0; x < game.width; x++) {
+                sb.append(getField(game.index(x, y)).representation);
+            }
+            if (y < game.height - 1) sb.append('\n');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,136 @@
+package de.cdietze.tictactoe.core;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Precomputed search results for the openings of an {@link MnkGame}, so {@link MnkAi#search(MnkState, SearchLimits)}
+ * doesn't have to search the first moves of every game from scratch. Books are built offline, see
+ * {@code OpeningBookBuilder} in the engine module.
+ * <p>
+ * Positions are keyed by their {@link MnkState#hash()}. The keys are kept sorted in one {@code long[]} with the
+ * results in a parallel {@code int[]}, so a lookup is a binary search and a book takes 12 bytes per position and no
+ * objects besides the two arrays. A result packs the move in bits 16 and up, the rating + 128 in bits 8-15 and the
+ * depth in bits 0-7.
+ * <p>
+ * The binary format of {@link #toBytes()} is big-endian: a header of magic, version, width, height, k and the number
+ * of positions as ints, then all keys, then all results. Instances are immutable and thread-safe.
+ */
+public final class OpeningBook {
+
+    static final int MAGIC = 0x54544F42;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 6 * 4;
+
+    public final MnkGame game;
+
+    private final long[] hashes;
+    private final int[] results;
+
+    private OpeningBook(MnkGame game, long[] hashes, int[] results) {
+        this.game = game;
+        this.hashes = hashes;
+        this.results = results;
+    }
+
+    /**
+     * A book of the results of the positions with the given {@link MnkState#hash() hashes}. Every result needs a move
+     * and a depth of at most 255.
+     */
+    public static OpeningBook create(MnkGame game, Map<Long, Ai.EvalResult> results) {
+        TreeMap<Long, Ai.EvalResult> sorted = new TreeMap<Long, Ai.EvalResult>(results);
+        long[] hashes = new long[sorted.size()];
+        int[] packed = new int[sorted.size()];
+        int n = 0;
+        for (Map.Entry<Long, Ai.EvalResult> entry : sorted.entrySet()) {
+            Ai.EvalResult result = entry.getValue();
+            checkArgument(result.bestMoveIndex >= 0 && result.bestMoveIndex < game.fieldCount(),
+                    "Invalid move: %s", result);
+            checkArgument(result.depth >= 0 && result.depth <= 255, "Invalid depth: %s", result);
+            hashes[n] = entry.getKey();
+            packed[n] = (result.bestMoveIndex << 16) | ((result.rating + 128) << 8) | result.depth;
+            ++n;
+        }
+        return new OpeningBook(game, hashes, packed);
+    }
+
+    /**
+     * Reads a book in the format of {@link #toBytes()}.
+     *
+     * @throws IllegalArgumentException if {@code data} is not a complete book
+     */
+    public static OpeningBook read(byte[] data) {
+        checkArgument(data.length >= HEADER_SIZE && readInt(data, 0) == MAGIC, "Not an opening book");
+        checkArgument(readInt(data, 4) == VERSION, "Unsupported opening book version %s", readInt(data, 4));
+        int width = readInt(data, 8), height = readInt(data, 12), k = readInt(data, 16), size = readInt(data, 20);
+        checkArgument(size >= 0 && data.length == HEADER_SIZE + 12L * size, "Corrupt opening book");
+        MnkGame game = new MnkGame(width, height, k);
+        long[] hashes = new long[size];
+        int[] results = new int[size];
+        int offset = HEADER_SIZE;
+        for (int n = 0; n < size; n++, offset += 8) {
+            hashes[n] = ((long) readInt(data, offset) << 32) | (readInt(data, offset + 4) & 0xFFFFFFFFL);
+            checkArgument(n == 0 || hashes[n - 1] < hashes[n], "Corrupt opening book");
+        }
+        for (int n = 0; n < size; n++, offset += 4) results[n] = readInt(data, offset);
+        return new OpeningBook(game, hashes, results);
+    }
+
+    public byte[] toBytes() {
+        byte[] data = new byte[HEADER_SIZE + 12 * hashes.length];
+        writeInt(data, 0, MAGIC);
+        writeInt(data, 4, VERSION);
+        writeInt(data, 8, game.width);
+        writeInt(data, 12, game.height);
+        writeInt(data, 16, game.k);
+        writeInt(data, 20, hashes.length);
+        int offset = HEADER_SIZE;
+        for (long hash : hashes) {
+            writeInt(data, offset, (int) (hash >>> 32));
+            writeInt(data, offset + 4, (int) hash);
+            offset += 8;
+        }
+        for (int result : results) {
+            writeInt(data, offset, result);
+            offset += 4;
+        }
+        return data;
+    }
+
+    /**
+     * The stored result of {@code state}, or {@code null} if the book doesn't have it. A stored move that isn't empty
+     * in {@code state} can only come from a hash collision and counts as a miss.
+     */
+    public Ai.EvalResult lookup(MnkState state) {
+        checkArgument(state.game.width == game.width && state.game.height == game.height && state.game.k == game.k,
+                "Book of %s can't look up %s", game, state.game);
+        int n = Arrays.binarySearch(hashes, state.hash());
+        if (n < 0) return null;
+        int result = results[n];
+        int move = result >>> 16;
+        if (state.getField(move) != Ai.Field.EMPTY) return null;
+        return Ai.EvalResult.create(((result >>> 8) & 0xFF) - 128, move, result & 0xFF);
+    }
+
+    /**
+     * The number of positions in the book.
+     */
+    public int size() {
+        return hashes.length;
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return (data[offset] << 24) | ((data[offset + 1] & 0xFF) << 16) | ((data[offset + 2] & 0xFF) << 8)
+                | (data[offset + 3] & 0xFF);
+    }
+
+    private static void writeInt(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 24);
+        data[offset + 1] = (byte) (value >>> 16);
+        data[offset + 2] = (byte) (value >>> 8);
+        data[offset + 3] = (byte) value;
+    }
+}
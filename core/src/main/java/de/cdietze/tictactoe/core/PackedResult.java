@@ -0,0 +1,68 @@
+package de.cdietze.tictactoe.core;
+
+/**
+ * Packs rating, best move index and depth of an {@link Ai.EvalResult} into a single int, so results can be stored in
+ * primitive tables.
+ * <p>
+ * Bits 0-3 hold the depth, bits 4-7 the best move index + 1 and bits 8-15 the rating + 128. A packed result is never 0,
+ * so 0 can be used to mark a missing result.
+ */
+final class PackedResult {
+
+    static final int NONE = 0;
+
+    private PackedResult() {
+    }
+
+    static int pack(int rating, int bestMoveIndex, int depth) {
+        return ((rating + 128) << 8) | ((bestMoveIndex + 1) << 4) | depth;
+    }
+
+    static int rating(int packed) {
+        return ((packed >> 8) & 0xFF) - 128;
+    }
+
+    static int bestMoveIndex(int packed) {
+        return ((packed >> 4) & 0xF) - 1;
+    }
+
+    static int depth(int packed) {
+        return packed & 0xF;
+    }
+
+    /**
+     * Returns the result as seen by the opponent, reached by playing {@code moveIndex}.
+     */
+    static int negateRating(int packed, int moveIndex) {
+        return pack(-rating(packed), moveIndex, depth(packed));
+    }
+
+    /**
+     * Like {@link #negateRating(int, int)} for results with depths relative to their own state: the parent is one move
+     * further away from the end.
+     */
+    static int fromChild(int childPacked, int moveIndex) {
+        return pack(-rating(childPacked), moveIndex, depth(childPacked) + 1);
+    }
+
+    /**
+     * Orders by rating first. On equal ratings a winner favors fewer moves and everybody else favors more moves.
+     */
+    static int compare(int left, int right) {
+        int leftKey = sortKey(left), rightKey = sortKey(right);
+        return leftKey < rightKey ? -1 : (leftKey == rightKey ? 0 : 1);
+    }
+
+    /**
+     * Folds rating and depth into one int whose natural order is the order of {@link #compare(int, int)}. Depths are
+     * below 16, so they never outweigh a rating difference.
+     */
+    private static int sortKey(int packed) {
+        int rating = rating(packed);
+        return (rating << 4) + (rating > 0 ? -depth(packed) : depth(packed));
+    }
+
+    static Ai.EvalResult toEvalResult(int packed) {
+        return Ai.EvalResult.create(rating(packed), bestMoveIndex(packed), depth(packed));
+    }
+}
@@ -0,0 +1,58 @@
+package de.cdietze.tictactoe.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bounds for an iterative deepening search: a time budget, a node budget and a maximum depth. The search stops when
+ * the first one is reached.
+ */
+public final class SearchLimits {
+
+    public static final SearchLimits NONE = new SearchLimits(Long.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE);
+
+    public final long maxMillis;
+    public final long maxNodes;
+    public final int maxDepth;
+
+    private SearchLimits(long maxMillis, long maxNodes, int maxDepth) {
+        checkArgument(maxMillis > 0, "maxMillis must be positive: %s", maxMillis);
+        checkArgument(maxNodes > 0, "maxNodes must be positive: %s", maxNodes);
+        checkArgument(maxDepth > 0, "maxDepth must be positive: %s", maxDepth);
+        this.maxMillis = maxMillis;
+        this.maxNodes = maxNodes;
+        this.maxDepth = maxDepth;
+    }
+
+    public static SearchLimits millis(long maxMillis) {
+        return NONE.withMillis(maxMillis);
+    }
+
+    public static SearchLimits nodes(long maxNodes) {
+        return NONE.withNodes(maxNodes);
+    }
+
+    public static SearchLimits depth(int maxDepth) {
+        return NONE.withDepth(maxDepth);
+    }
+
+    public SearchLimits withMillis(long maxMillis) {
+        return new SearchLimits(maxMillis, maxNodes, maxDepth);
+    }
+
+    public SearchLimits withNodes(long maxNodes) {
+        return new SearchLimits(maxMillis, maxNodes, maxDepth);
+    }
+
+    public SearchLimits withDepth(int maxDepth) {
+        return new SearchLimits(maxMillis, maxNodes, maxDepth);
+    }
+
+    @Override
+    public String toString() {
+        return "SearchLimits{" +
+                "maxMillis=" + maxMillis +
+                ", maxNodes=" + maxNodes +
+                ", maxDepth=" + maxDepth +
+                '}';
+    }
+}
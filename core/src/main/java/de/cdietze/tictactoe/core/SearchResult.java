@@ -0,0 +1,52 @@
+package de.cdietze.tictactoe.core;
+
+/**
+ * The outcome of a budgeted search, see {@link MnkAi#search(MnkState, SearchLimits)} and
+ * {@link MctsAi#search(MnkState, SearchLimits)}.
+ */
+public final class SearchResult {
+
+    /**
+     * The result of the deepest completed iteration.
+     */
+    public final Ai.EvalResult result;
+    /**
+     * The depth of the deepest completed iteration.
+     */
+    public final int completedDepth;
+    /**
+     * Whether the search saw the end of the game on every line, so the rating is exact.
+     */
+    public final boolean isSolved;
+    /**
+     * The number of visited nodes, or of playouts for {@link MctsAi}.
+     */
+    public final long nodeCount;
+    public final long elapsedMillis;
+
+    SearchResult(Ai.EvalResult result, int completedDepth, boolean isSolved, long nodeCount, long elapsedMillis) {
+        this.result = result;
+        this.completedDepth = completedDepth;
+        this.isSolved = isSolved;
+        this.nodeCount = nodeCount;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    /**
+     * The throughput of the search: nodes per second for {@link MnkAi}, playouts per second for {@link MctsAi}.
+     */
+    public double nodesPerSecond() {
+        return nodeCount * 1000.0 / Math.max(elapsedMillis, 1);
+    }
+
+    @Override
+    public String toString() {
+        return "SearchResult{" +
+                "result=" + result +
+                ", completedDepth=" + completedDepth +
+                ", isSolved=" + isSolved +
+                ", nodeCount=" + nodeCount +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
@@ -0,0 +1,201 @@
+package de.cdietze.tictactoe.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A cache of search results for {@link MnkAi} on any board size, indexed by {@link MnkState#hash()} and safe to share
+ * between the threads of a parallel search without locks.
+ * <p>
+ * Every slot is two longs of one {@code long[]}: the entry and the entry XOR the hash. A probe only accepts a slot if
+ * both XOR back to the probed hash, so a slot torn by two threads writing it at the same time reads as a miss instead
+ * of a wrong result, and so does an empty slot, because an entry is never 0. Like {@link TranspositionTable}, scores
+ * are stored relative to the position.
+ * <p>
+ * Bits 0-15 of an entry hold the bit of the best move + 1, bits 16-23 the remaining depth, bits 24-25 the bound, bits
+ * 26-33 the generation of the search that stored it and bits 34 and up the score.
+ * <p>
+ * The statistics are only counted if asked for at construction. Counting writes the same fields on every probe, which
+ * makes the threads of a parallel search fight over one cache line, and the counts are not synchronized, so probes from
+ * several threads at once can lose a few of them. Tables for parallel searches should leave them off.
+ */
+public final class SharedTranspositionTable {
+
+    /**
+     * Which entry a store overwrites when its slot is taken by another position.
+     */
+    public enum Replacement {
+        /**
+         * Always the one in the slot, so the table holds the most recent results.
+         */
+        ALWAYS,
+        /**
+         * Only an entry of an earlier search or one that isn't deeper, so expensive results survive.
+         */
+        DEPTH_PREFERRED,
+        /**
+         * Slots come in pairs: the first is kept {@link #DEPTH_PREFERRED}, the second takes what the first rejects.
+         */
+        TWO_TIER
+    }
+
+    static final long NONE = 0;
+    static final int EXACT = 1;
+    static final int LOWER_BOUND = 2;
+    static final int UPPER_BOUND = 3;
+
+    public final Replacement replacement;
+    public final boolean isCounting;
+
+    private final long[] slots;
+    private final int mask;
+    private int generation;
+    private long probeCount;
+    private long hitCount;
+    private long collisionCount;
+    private long storeCount;
+
+    /**
+     * A table without statistics.
+     */
+    public SharedTranspositionTable(int sizeBits, Replacement replacement) {
+        this(sizeBits, replacement, false);
+    }
+
+    /**
+     * @param sizeBits   the table holds {@code 2^sizeBits} entries of 16 bytes each
+     * @param isCounting whether to count probes, hits, collisions and stores; the counts stay 0 otherwise
+     */
+    public SharedTranspositionTable(int sizeBits, Replacement replacement, boolean isCounting) {
+        checkArgument(sizeBits >= 1 && sizeBits <= 28, "sizeBits must be between 1 and 28: %s", sizeBits);
+        this.replacement = replacement;
+        this.isCounting = isCounting;
+        this.slots = new long[2 << sizeBits];
+        this.mask = (1 << sizeBits) - 1;
+    }
+
+    /**
+     * Returns the entry of the position with {@code hash}, or {@link #NONE}.
+     */
+    long probe(long hash) {
+        int slot = (int) hash & mask;
+        long entry = read(slot, hash);
+        if (entry == NONE && replacement == Replacement.TWO_TIER) entry = read(slot ^ 1, hash);
+        if (isCounting) {
+            ++probeCount;
+            if (entry != NONE) {
+                ++hitCount;
+            } else if (slots[2 * slot + 1] != NONE) {
+                ++collisionCount;
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * @param score   the score relative to the position
+     * @param depth   the remaining depth, deeper searches are stored as 255, which only makes them less useful
+     * @param moveBit the bit of the best move, or -1
+     */
+    void store(long hash, int score, int bound, int depth, int moveBit) {
+        if (isCounting) ++storeCount;
+        depth = Math.min(depth, 255);
+        long entry = ((long) score << 34) | ((long) generation << 26) | ((long) bound << 24) | ((long) depth << 16)
+                | (moveBit + 1);
+        int slot = (int) hash & mask;
+        if (replacement == Replacement.TWO_TIER) {
+            slot &= ~1;
+            if (!canReplace(slot, hash, depth)) slot |= 1;
+        } else if (replacement == Replacement.DEPTH_PREFERRED && !canReplace(slot, hash, depth)) {
+            return;
+        }
+        slots[2 * slot] = entry ^ hash;
+        slots[2 * slot + 1] = entry;
+    }
+
+    private long read(int slot, long hash) {
+        long entry = slots[2 * slot + 1];
+        return entry != NONE && (slots[2 * slot] ^ entry) == hash ? entry : NONE;
+    }
+
+    /**
+     * Whether a depth-preferred slot may take an entry of the position with {@code hash}.
+     */
+    private boolean canReplace(int slot, long hash, int depth) {
+        long entry = slots[2 * slot + 1];
+        return entry == NONE || (slots[2 * slot] ^ entry) == hash || generation(entry) != generation
+                || depth >= depth(entry);
+    }
+
+    /**
+     * Starts a new search: entries of earlier searches stay valid but make room for new ones first.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    static int score(long entry) {
+        return (int) (entry >> 34);
+    }
+
+    static int bound(long entry) {
+        return (int) (entry >>> 24) & 0x3;
+    }
+
+    static int depth(long entry) {
+        return (int) (entry >>> 16) & 0xFF;
+    }
+
+    static int moveBit(long entry) {
+        return (int) (entry & 0xFFFF) - 1;
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> 26) & 0xFF;
+    }
+
+    /**
+     * The number of entries the table can hold.
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * The share of slots that hold an entry, between 0 and 1. Scans the whole table.
+     */
+    public double occupancy() {
+        int used = 0;
+        for (int slot = 0; slot <= mask; slot++) {
+            if (slots[2 * slot + 1] != NONE) ++used;
+        }
+        return used / (double) capacity();
+    }
+
+    public long probeCount() {
+        return probeCount;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * The probes that missed because their slot held another position.
+     */
+    public long collisionCount() {
+        return collisionCount;
+    }
+
+    public long storeCount() {
+        return storeCount;
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length; i++) slots[i] = NONE;
+        generation = 0;
+        probeCount = 0;
+        hitCount = 0;
+        collisionCount = 0;
+        storeCount = 0;
+    }
+}
@@ -0,0 +1,61 @@
+package de.cdietze.tictactoe.core;
+
+/**
+ * Perfect-play results for every 18-bit state, indexed by the state itself.
+ * <p>
+ * States are solved lazily on first lookup. Children are looked up in the table as well, so every state is solved
+ * once per thread at most. The first lookup of the empty board solves all reachable states.
+ * <p>
+ * The table is filled without synchronization by every thread that looks something up: the AI worker, the game thread
+ * for hints and the simulation threads. That race is benign only because int writes are atomic and solving a state
+ * always gives the same result, so a thread either sees {@link PackedResult#NONE} and solves the state again or sees
+ * the one correct value. Anything added here must keep that invariant: no state besides the table, and no entries
+ * whose value depends on which thread wrote them or when.
+ */
+final class SolvedTable {
+
+    private static final int[] table = new int[1 << 18];
+
+    private SolvedTable() {
+    }
+
+    static int lookup(int state) {
+        int packed = table[state];
+        if (packed == PackedResult.NONE) {
+            packed = solve(state);
+            table[state] = packed;
+        }
+        return packed;
+    }
+
+    /**
+     * Same rules as {@link Ai#minimax(int)}, but the children come from the table and depths are relative to
+     * {@code state}.
+     */
+    private static int solve(int state) {
+        boolean isXToMove = Ai.isXToMove(state);
+        if (Ai.hasXWon(state)) return PackedResult.pack(isXToMove ? 100 : -100, -1, 0);
+        if (Ai.hasOWon(state)) return PackedResult.pack(isXToMove ? -100 : 100, -1, 0);
+        if (Ai.isDraw(state)) return PackedResult.pack(0, -1, 0);
+        int occupiedFieldMask = (state >> 9) | state;
+        int best = PackedResult.NONE;
+        for (int i = 0; i < 9; i++) {
+            if ((occupiedFieldMask & (1 << i)) != 0) continue;
+            int result = lookupMove(state, i, isXToMove);
+            if (best == PackedResult.NONE || PackedResult.compare(result, best) > 0) best = result;
+        }
+        return best;
+    }
+
+    /**
+     * The result of playing the empty field {@code index} in the running game {@code state}, with {@code index} as
+     * the best move and the depth counted from {@code state}.
+     */
+    static int lookupMove(int state, int index, boolean isXToMove) {
+        int newState = Ai.setField(state, index, isXToMove);
+        // Only the player who just moved can have won, which is cheaper to check than a lookup
+        if (Ai.hasWonWithMove(newState, index, isXToMove)) return PackedResult.pack(100, index, 1);
+        if (Ai.isDraw(newState)) return PackedResult.pack(0, index, 1);
+        return PackedResult.fromChild(lookup(newState), index);
+    }
+}
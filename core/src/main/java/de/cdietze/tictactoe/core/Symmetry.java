@@ -0,0 +1,106 @@
+package de.cdietze.tictactoe.core;
+
+/**
+ * The eight symmetries (rotations and reflections) of the 3x3 board, applied to states in the {@link Ai} encoding.
+ * <p>
+ * Symmetry {@code s} rotates the board {@code s % 4} times by 90 degrees and then mirrors it horizontally if
+ * {@code s >= 4}. Symmetry 0 is the identity.
+ */
+public final class Symmetry {
+
+    public static final int COUNT = 8;
+
+    /**
+     * {@code INDEX_PERMUTATIONS[s][i]} is the field index that field {@code i} is moved to by symmetry {@code s}.
+     */
+    private static final int[][] INDEX_PERMUTATIONS = buildIndexPermutations();
+    private static final int[][] INVERSE_INDEX_PERMUTATIONS = buildInversePermutations(INDEX_PERMUTATIONS);
+    /**
+     * {@code MASK_PERMUTATIONS[s][mask]} is the 9-bit {@code mask} transformed by symmetry {@code s}.
+     */
+    private static final int[][] MASK_PERMUTATIONS = buildMaskPermutations(INDEX_PERMUTATIONS);
+
+    private Symmetry() {
+    }
+
+    public static int transform(int symmetry, int state) {
+        int[] masks = MASK_PERMUTATIONS[symmetry];
+        return masks[state & 0x1FF] | (masks[(state >> 9) & 0x1FF] << 9);
+    }
+
+    /**
+     * Returns the symmetry that maps {@code state} to its canonical form, the smallest of its eight images.
+     */
+    public static int canonicalSymmetry(int state) {
+        int bestSymmetry = 0, bestState = state;
+        for (int symmetry = 1; symmetry < COUNT; symmetry++) {
+            int image = transform(symmetry, state);
+            if (image < bestState) {
+                bestState = image;
+                bestSymmetry = symmetry;
+            }
+        }
+        return bestSymmetry;
+    }
+
+    public static int canonical(int state) {
+        return transform(canonicalSymmetry(state), state);
+    }
+
+    /**
+     * Maps a field index of the original board to the board transformed by {@code symmetry}.
+     */
+    public static int mapIndex(int symmetry, int index) {
+        return INDEX_PERMUTATIONS[symmetry][index];
+    }
+
+    /**
+     * Maps a field index of the board transformed by {@code symmetry} back to the original board.
+     */
+    public static int unmapIndex(int symmetry, int index) {
+        return INVERSE_INDEX_PERMUTATIONS[symmetry][index];
+    }
+
+    private static int[][] buildIndexPermutations() {
+        int[][] permutations = new int[COUNT][9];
+        for (int symmetry = 0; symmetry < COUNT; symmetry++) {
+            for (int y = 0; y < 3; y++) {
+                for (int x = 0; x < 3; x++) {
+                    int tx = x, ty = y;
+                    for (int r = 0; r < symmetry % 4; r++) {
+                        int rotatedX = 2 - ty;
+                        ty = tx;
+                        tx = rotatedX;
+                    }
+                    if (symmetry >= 4) tx = 2 - tx;
+                    permutations[symmetry][Position.toIndex(x, y)] = Position.toIndex(tx, ty);
+                }
+            }
+        }
+        return permutations;
+    }
+
+    private static int[][] buildInversePermutations(int[][] permutations) {
+        int[][] inverse = new int[COUNT][9];
+        for (int symmetry = 0; symmetry < COUNT; symmetry++) {
+            for (int i = 0; i < 9; i++) {
+                inverse[symmetry][permutations[symmetry][i]] = i;
+            }
+        }
+        return inverse;
+    }
+
+    private static int[][] buildMaskPermutations(int[][] permutations) {
+        int[][] masks = new int[COUNT][1 << 9];
+        for (int symmetry = 0; symmetry < COUNT; symmetry++) {
+            for (int mask = 0; mask < (1 << 9); mask++) {
+                int image = 0;
+                for (int i = 0; i < 9; i++) {
+                    if ((mask & (1 << i)) != 0) image |= 1 << permutations[symmetry][i];
+                }
+                masks[symmetry][mask] = image;
+            }
+        }
+        return masks;
+    }
+}
@@ -0,0 +1,386 @@
+package de.cdietze.tictactoe.core;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Threat-space search: looks for a forced win of the player to move that only uses threats, which finds wins on large
+ * boards far beyond the depth of {@link MnkAi}.
+ * <p>
+ * Threats are found with patterns on the bitboards. A window is a line of {@code k} fields without marks of the
+ * defender. A <em>four</em> is a window with {@code k - 1} marks of the attacker, its empty field wins on the next
+ * move. A <em>three</em> is a window with {@code k - 2} marks, one more mark makes it a four. All windows of a direction
+ * are counted at once by adding the shifted board into a bit-sliced counter.
+ * <p>
+ * The attacker only plays moves that make a four or a three. A four leaves the defender a single reply, or none if it
+ * makes two fours at once. A three is only a threat if the attacker then wins by continuous fours even if the defender
+ * passes. The defender may answer a three with any empty field, and all of them are searched: a mark far from the
+ * sequence can still make a four of the defender later on. The fields that would give the defender a four, the fields
+ * of the winning sequence and the fields in windows through its forced replies go first, since they refute most
+ * threes. The defender's own fours are respected: the attacker has to block them. Every found win is therefore a real
+ * forced win, though not necessarily the fastest one. The number of threes in a sequence is bounded, fours are not
+ * since they fill the board.
+ * <p>
+ * {@link MnkAi#search(MnkState, SearchLimits)} runs this as a pre-pass. Instances keep scratch state and are not
+ * thread-safe.
+ */
+public final class ThreatSearch {
+
+    public static final int DEFAULT_MAX_THREES = 3;
+
+    public final MnkGame game;
+    public final int maxThrees;
+
+    /**
+     * The start bits of all windows, one bitboard per entry of {@link MnkGame#directions}.
+     */
+    private final long[][] windowStarts;
+    /**
+     * A bit-sliced counter of marks per window start, with enough planes to count to {@code k}.
+     */
+    private final long[][] counter;
+    private final long[] shifted;
+    private final long[] blocked;
+    private final long[] match;
+    private final long[] wins;
+    private final long[] fours;
+    private final long[] threes;
+    private final long[] defenderWins;
+    /**
+     * The fields of the winning sequence found after a pass, and the defender's forced replies in it.
+     */
+    private final long[] zone;
+    private final long[] replies;
+    /**
+     * The defender's replies to a three that are unlikely to refute it.
+     */
+    private final long[] rest;
+    private boolean isRecording;
+    /**
+     * The candidate moves of each ply, fours first, and the defender's forced reply to each four, or -1.
+     */
+    private final int[][] moves;
+    private final int[][] replyBits;
+
+    private long[] attackerBoard;
+    private long[] defenderBoard;
+    private MnkState state;
+    private boolean isAttackerX;
+    private int bestBit;
+    private long nodeCount;
+    private long maxNodes;
+    private long deadline;
+    private boolean aborted;
+
+    public ThreatSearch(MnkGame game) {
+        this(game, DEFAULT_MAX_THREES);
+    }
+
+    /**
+     * @param maxThrees the maximum number of threes in a winning sequence, 0 only finds wins by continuous fours
+     */
+    public ThreatSearch(MnkGame game, int maxThrees) {
+        checkArgument(maxThrees >= 0, "maxThrees must not be negative: %s", maxThrees);
+        this.game = game;
+        this.maxThrees = maxThrees;
+        this.windowStarts = buildWindowStarts(game);
+        this.counter = new long[32 - Integer.numberOfLeadingZeros(game.k)][game.wordCount];
+        this.shifted = new long[game.wordCount];
+        this.blocked = new long[game.wordCount];
+        this.match = new long[game.wordCount];
+        this.wins = new long[game.wordCount];
+        this.fours = new long[game.wordCount];
+        this.threes = new long[game.wordCount];
+        this.defenderWins = new long[game.wordCount];
+        this.zone = new long[game.wordCount];
+        this.replies = new long[game.wordCount];
+        this.rest = new long[game.wordCount];
+        // Every ply but the passes marks a field
+        this.moves = new int[game.fieldCount() + 2 * maxThrees + 3][game.fieldCount()];
+        this.replyBits = new int[moves.length][game.fieldCount()];
+    }
+
+    /**
+     * Looks for a forced win of the player to move within the node and time budget of {@code limits}; the depth limit
+     * does not apply. If there is one, the result has a rating of 100, the first move of the win and the number of
+     * moves until the win on its longest line, and it is solved. Otherwise the rating is 0 and there is no move, which
+     * does not mean there is no win. {@code state} is left unchanged.
+     */
+    public SearchResult search(MnkState state, SearchLimits limits) {
+        long startMillis = System.currentTimeMillis();
+        this.state = state;
+        this.isAttackerX = state.isXToMove();
+        this.attackerBoard = isAttackerX ? state.xBoard : state.oBoard;
+        this.defenderBoard = isAttackerX ? state.oBoard : state.xBoard;
+        this.nodeCount = 0;
+        this.maxNodes = limits.maxNodes;
+        this.deadline = limits.maxMillis == Long.MAX_VALUE ? Long.MAX_VALUE : startMillis + limits.maxMillis;
+        this.aborted = false;
+        this.isRecording = false;
+        this.bestBit = -1;
+        int winDepth = 0;
+        if (!state.hasXWon() && !state.hasOWon() && !state.isFull()) winDepth = attack(0, maxThrees);
+        this.state = null;
+        long elapsedMillis = System.currentTimeMillis() - startMillis;
+        if (winDepth == 0 || aborted) {
+            return new SearchResult(Ai.EvalResult.create(0, -1, 0), 0, false, nodeCount, elapsedMillis);
+        }
+        Ai.EvalResult result = Ai.EvalResult.create(100, game.toIndex(bestBit), winDepth);
+        return new SearchResult(result, winDepth, true, nodeCount, elapsedMillis);
+    }
+
+    /**
+     * The attacker to move. Returns the number of moves until the attacker's win, or 0 if none was found.
+     */
+    private int attack(int ply, int threesLeft) {
+        if (++nodeCount >= maxNodes || ((nodeCount & 1023) == 0 && System.currentTimeMillis() >= deadline)) {
+            aborted = true;
+        }
+        if (aborted) return 0;
+        scanWindows(attackerBoard, defenderBoard, wins, fours, threesLeft > 0 ? threes : null);
+        if (!Bitboards.isEmpty(wins)) {
+            int bit = firstBit(wins);
+            record(ply, bit);
+            if (isRecording) Bitboards.set(zone, bit);
+            return 1;
+        }
+        scanWindows(defenderBoard, attackerBoard, defenderWins, null, null);
+        int defenderWinCount = Bitboards.bitCount(defenderWins);
+        if (defenderWinCount >= 2) return 0;
+        int[] plyMoves = moves[ply];
+        int moveCount;
+        int fourCount;
+        if (defenderWinCount == 1) {
+            // The attacker has to block, which only continues the attack if it is a threat itself
+            plyMoves[0] = firstBit(defenderWins);
+            moveCount = fourCount = 1;
+        } else {
+            moveCount = fourCount = collectBits(fours, plyMoves, 0);
+            if (threesLeft > 0) {
+                for (int i = 0; i < threes.length; i++) threes[i] &= ~fours[i];
+                moveCount = collectBits(threes, plyMoves, moveCount);
+            }
+        }
+        // Two fours at once win in three moves, look for them before the longer sequences
+        int[] plyReplies = replyBits[ply];
+        for (int n = 0; n < fourCount; n++) {
+            int bit = plyMoves[n];
+            state.setBit(bit, isAttackerX);
+            scanWindows(attackerBoard, defenderBoard, wins, null, null);
+            boolean isDoubleFour = Bitboards.bitCount(wins) >= 2;
+            plyReplies[n] = firstBit(wins);
+            if (isDoubleFour && isRecording) {
+                for (int i = 0; i < zone.length; i++) zone[i] |= wins[i];
+            }
+            state.clearBit(bit);
+            if (isDoubleFour) {
+                record(ply, bit);
+                if (isRecording) Bitboards.set(zone, bit);
+                return 3;
+            }
+        }
+        for (int n = 0; n < moveCount; n++) {
+            int bit = plyMoves[n];
+            // Threes can't make a four, they would be in the fours otherwise
+            int reply = n < fourCount ? plyReplies[n] : -1;
+            state.setBit(bit, isAttackerX);
+            int result = 0;
+            if (reply >= 0) {
+                // A four: the defender has no immediate win, that was checked above, so it has to block
+                state.setBit(reply, !isAttackerX);
+                int childResult = attack(ply + 2, threesLeft);
+                state.clearBit(reply);
+                if (childResult > 0) {
+                    result = 2 + childResult;
+                    if (isRecording) {
+                        Bitboards.set(zone, reply);
+                        Bitboards.set(replies, reply);
+                    }
+                }
+            } else if (threesLeft > 0) {
+                int defended = defendThree(ply + 1, threesLeft);
+                if (defended > 0) result = 1 + defended;
+            }
+            state.clearBit(bit);
+            if (aborted) return 0;
+            if (result > 0) {
+                record(ply, bit);
+                if (isRecording) Bitboards.set(zone, bit);
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * The defender to move after a three. Returns the number of moves until the attacker's win against every reply,
+     * counting the reply, or 0 if the three was no threat or the defender has a reply.
+     */
+    private int defendThree(int ply, int threesLeft) {
+        scanWindows(defenderBoard, attackerBoard, defenderWins, fours, null);
+        if (!Bitboards.isEmpty(defenderWins)) return 0;
+        // The defender's fours, saved before the pass overwrites the scratch boards
+        int[] plyMoves = moves[ply];
+        int moveCount = collectBits(fours, plyMoves, 0);
+        clear(zone);
+        clear(replies);
+        isRecording = true;
+        int passResult = attack(ply + 1, 0);
+        isRecording = false;
+        if (passResult == 0) return 0;
+        // Every empty field is searched, the likely refutations first: the defender's fours, the fields of the
+        // sequence and the fields of windows through its forced replies
+        windowsThrough(replies, attackerBoard, match);
+        for (int i = 0; i < match.length; i++) {
+            long empty = game.fieldsMask[i] & ~(attackerBoard[i] | defenderBoard[i]);
+            match[i] = (match[i] | zone[i]) & empty;
+            rest[i] = empty & ~match[i];
+            for (int n = 0; n < moveCount; n++) {
+                int bit = plyMoves[n];
+                if (bit >>> 6 == i) {
+                    match[i] &= ~(1L << bit);
+                    rest[i] &= ~(1L << bit);
+                }
+            }
+        }
+        moveCount = collectBits(match, plyMoves, moveCount);
+        moveCount = collectBits(rest, plyMoves, moveCount);
+        int result = passResult;
+        for (int n = 0; n < moveCount; n++) {
+            int bit = plyMoves[n];
+            state.setBit(bit, !isAttackerX);
+            int childResult = attack(ply + 1, threesLeft - 1);
+            state.clearBit(bit);
+            if (childResult == 0) return 0;
+            result = Math.max(result, childResult);
+        }
+        return 1 + result;
+    }
+
+    private void record(int ply, int bit) {
+        if (ply == 0 && !isRecording) bestBit = bit;
+    }
+
+    /**
+     * Sets the empty fields of the windows of {@code own} that have no {@code other} mark and {@code k - 1},
+     * {@code k - 2} or {@code k - 3} {@code own} marks in {@code wins}, {@code fours} and {@code threes}. Those are the
+     * fields that win, make a four and make a three. {@code fours} and {@code threes} may be null to skip them.
+     */
+    private void scanWindows(long[] own, long[] other, long[] wins, long[] fours, long[] threes) {
+        int k = game.k;
+        clear(wins);
+        if (fours != null) clear(fours);
+        if (threes != null) clear(threes);
+        for (int d = 0; d < windowStarts.length; d++) {
+            int direction = game.directions[d];
+            for (long[] plane : counter) clear(plane);
+            clear(blocked);
+            for (int j = 0; j < k; j++) {
+                Bitboards.shiftRight(own, j * direction, shifted);
+                for (int i = 0; i < shifted.length; i++) {
+                    long carry = shifted[i];
+                    for (int p = 0; p < counter.length && carry != 0; p++) {
+                        long nextCarry = counter[p][i] & carry;
+                        counter[p][i] ^= carry;
+                        carry = nextCarry;
+                    }
+                }
+                Bitboards.shiftRight(other, j * direction, shifted);
+                for (int i = 0; i < shifted.length; i++) blocked[i] |= shifted[i];
+            }
+            addWindowFields(d, k - 1, own, other, wins);
+            if (fours != null && k >= 2) addWindowFields(d, k - 2, own, other, fours);
+            if (threes != null && k >= 3) addWindowFields(d, k - 3, own, other, threes);
+        }
+    }
+
+    /**
+     * Adds the empty fields of the windows in direction {@code d} with exactly {@code count} marks, as counted by
+     * {@link #scanWindows}, to {@code result}.
+     */
+    private void addWindowFields(int d, int count, long[] own, long[] other, long[] result) {
+        long[] starts = windowStarts[d];
+        boolean any = false;
+        for (int i = 0; i < match.length; i++) {
+            long equal = starts[i] & ~blocked[i];
+            for (int p = 0; p < counter.length; p++) {
+                equal &= ((count >>> p) & 1) != 0 ? counter[p][i] : ~counter[p][i];
+            }
+            match[i] = equal;
+            any |= equal != 0;
+        }
+        if (!any) return;
+        spread(d, own, other, result);
+    }
+
+    /**
+     * Sets the empty fields of the windows that start in {@link #match} in direction {@code d} in {@code result}.
+     */
+    private void spread(int d, long[] own, long[] other, long[] result) {
+        int direction = game.directions[d];
+        for (int j = 0; j < game.k; j++) {
+            Bitboards.shiftLeft(match, j * direction, shifted);
+            for (int i = 0; i < result.length; i++) {
+                result[i] |= shifted[i] & game.fieldsMask[i] & ~(own[i] | other[i]);
+            }
+        }
+    }
+
+    /**
+     * Sets the empty fields of the windows that contain a bit of {@code required} and no bit of {@code blocker} in
+     * {@code result}.
+     */
+    private void windowsThrough(long[] required, long[] blocker, long[] result) {
+        clear(result);
+        long[] through = counter[0];
+        for (int d = 0; d < windowStarts.length; d++) {
+            int direction = game.directions[d];
+            clear(through);
+            clear(blocked);
+            for (int j = 0; j < game.k; j++) {
+                Bitboards.shiftRight(required, j * direction, shifted);
+                for (int i = 0; i < shifted.length; i++) through[i] |= shifted[i];
+                Bitboards.shiftRight(blocker, j * direction, shifted);
+                for (int i = 0; i < shifted.length; i++) blocked[i] |= shifted[i];
+            }
+            for (int i = 0; i < match.length; i++) match[i] = windowStarts[d][i] & through[i] & ~blocked[i];
+            spread(d, attackerBoard, defenderBoard, result);
+        }
+    }
+
+    private static int collectBits(long[] board, int[] bits, int count) {
+        for (int word = 0; word < board.length; word++) {
+            long w = board[word];
+            while (w != 0) {
+                bits[count++] = (word << 6) + Long.numberOfTrailingZeros(w);
+                w &= w - 1;
+            }
+        }
+        return count;
+    }
+
+    private static int firstBit(long[] board) {
+        for (int word = 0; word < board.length; word++) {
+            if (board[word] != 0) return (word << 6) + Long.numberOfTrailingZeros(board[word]);
+        }
+        return -1;
+    }
+
+    private static void clear(long[] board) {
+        for (int i = 0; i < board.length; i++) board[i] = 0;
+    }
+
+    private static long[][] buildWindowStarts(MnkGame game) {
+        int[][] steps = {{1, 0}, {0, 1}, {1, 1}, {-1, 1}};
+        long[][] starts = new long[steps.length][game.wordCount];
+        for (int d = 0; d < steps.length; d++) {
+            for (int y = 0; y < game.height; y++) {
+                for (int x = 0; x < game.width; x++) {
+                    int endX = x + (game.k - 1) * steps[d][0], endY = y + (game.k - 1) * steps[d][1];
+                    if (endX < 0 || endX >= game.width || endY >= game.height) continue;
+                    Bitboards.set(starts[d], game.toBit(game.index(x, y)));
+                }
+            }
+        }
+        return starts;
+    }
+}
@@ -0,0 +1,77 @@
+package de.cdietze.tictactoe.core;
+
+/**
+ * A cache of search results for {@link AlphaBeta}, indexed by the canonical form of the 18-bit state (see
+ * {@link Symmetry}), so all eight symmetric positions share one entry.
+ * <p>
+ * Each entry packs a score, its bound type and the best move. Scores are stored relative to the position (a win in
+ * {@code d} moves scores {@code WIN - d} no matter how deep the position was found), so the depth tie-breaking stays
+ * intact. The best move is stored in the canonical orientation and mapped back to the orientation of the probed
+ * state.
+ * <p>
+ * Bits 0-3 hold the move + 1, bits 4-5 the bound and bits 8 and up the score + 2048. An entry is never 0, so 0 marks a
+ * missing entry.
+ */
+public final class TranspositionTable {
+
+    static final int NONE = 0;
+    static final int EXACT = 0;
+    static final int LOWER_BOUND = 1;
+    static final int UPPER_BOUND = 2;
+
+    private final int[] entries = new int[1 << 18];
+    private long hitCount;
+    private long missCount;
+
+    /**
+     * Returns the entry for {@code state} with its move mapped back to the orientation of {@code state}, or
+     * {@link #NONE}.
+     *
+     * @param symmetry the {@link Symmetry#canonicalSymmetry(int)} of {@code state}
+     */
+    int probe(int state, int symmetry) {
+        int entry = entries[Symmetry.transform(symmetry, state)];
+        if (entry == NONE) {
+            ++missCount;
+            return NONE;
+        }
+        ++hitCount;
+        int move = move(entry);
+        return move < 0 ? entry : (entry & ~0xF) | (Symmetry.unmapIndex(symmetry, move) + 1);
+    }
+
+    /**
+     * @param symmetry the {@link Symmetry#canonicalSymmetry(int)} of {@code state}
+     * @param score    the score relative to {@code state}
+     */
+    void store(int state, int symmetry, int score, int bound, int move) {
+        int canonicalMove = move < 0 ? -1 : Symmetry.mapIndex(symmetry, move);
+        entries[Symmetry.transform(symmetry, state)] = ((score + 2048) << 8) | (bound << 4) | (canonicalMove + 1);
+    }
+
+    static int score(int entry) {
+        return (entry >> 8) - 2048;
+    }
+
+    static int bound(int entry) {
+        return (entry >> 4) & 0x3;
+    }
+
+    static int move(int entry) {
+        return (entry & 0xF) - 1;
+    }
+
+    public long hitCount() {
+        return hitCount;
+    }
+
+    public long missCount() {
+        return missCount;
+    }
+
+    public void clear() {
+        for (int i = 0; i < entries.length; i++) entries[i] = NONE;
+        hitCount = 0;
+        missCount = 0;
+    }
+}
@@ -0,0 +1,173 @@
+package de.cdietze.tictactoe.core;
+
+import org.junit.After;
+import org.junit.Test;
+import playn.core.Exec;
+import playn.core.StubPlatform;
+import react.Slot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AiServiceTest {
+
+    private final TestPlatform plat = new TestPlatform();
+    private final AiService aiService = new AiService(plat);
+    private final List<Ai.EvalResult> results = new ArrayList<>();
+    private final Slot<Ai.EvalResult> collect = new Slot<Ai.EvalResult>() {
+        @Override
+        public void onEmit(Ai.EvalResult result) {
+            results.add(result);
+        }
+    };
+
+    @After
+    public void tearDown() {
+        plat.worker.shutdownNow();
+    }
+
+    @Test
+    public void shouldDeliverResultOnFrame() throws Exception {
+        aiService.requestMove(Ai.stringToState("XO.XO...."), collect);
+        plat.awaitWorker();
+        assertThat(results).isEmpty();
+        plat.runFrame();
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).bestMoveIndex).isEqualTo(Ai.index(0, 2));
+    }
+
+    @Test
+    public void shouldDropCancelledResult() throws Exception {
+        aiService.requestMove(Ai.emptyState, collect);
+        aiService.cancel();
+        plat.awaitWorker();
+        plat.runFrame();
+        assertThat(results).isEmpty();
+    }
+
+    @Test
+    public void shouldOnlyDeliverLatestRequest() throws Exception {
+        aiService.requestMove(Ai.emptyState, collect);
+        aiService.requestMove(Ai.stringToState("XO.XO...."), collect);
+        plat.awaitWorker();
+        plat.runFrame();
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).bestMoveIndex).isEqualTo(Ai.index(0, 2));
+    }
+
+    @Test
+    public void shouldIgnoreRequestsAfterClose() throws Exception {
+        aiService.close();
+        aiService.requestMove(Ai.emptyState, collect);
+        plat.awaitWorker();
+        plat.runFrame();
+        assertThat(results).isEmpty();
+    }
+
+    @Test
+    public void shouldReportLatency() throws Exception {
+        aiService.requestMove(Ai.emptyState, collect);
+        plat.awaitWorker();
+        plat.runFrame();
+        assertThat(aiService.latencyMillis.get()).isGreaterThanOrEqualTo(aiService.searchMillis.get());
+    }
+
+    @Test
+    public void shouldAnswerFromPonderedResults() throws Exception {
+        int state = Ai.stringToState("XO.|...|...");
+        aiService.ponder(state);
+        plat.awaitWorker();
+        plat.runFrame();
+        int humanMove = Ai.setField(state, 4, true);
+        aiService.requestMove(humanMove, collect);
+        plat.runFrame();
+        assertThat(results).hasSize(1);
+        assertThat(results.get(0).bestMoveIndex).isEqualTo(Ai.eval(humanMove).bestMoveIndex);
+        assertThat(aiService.ponderHits.get()).isEqualTo(1);
+        assertThat(aiService.ponderMisses.get()).isEqualTo(0);
+        assertThat(aiService.ponderHitRate()).isEqualTo(1.0);
+        assertThat(aiService.savedMillis.get()).isGreaterThanOrEqualTo(0.0);
+    }
+
+    @Test
+    public void shouldCountMissWhilePondering() throws Exception {
+        int state = Ai.stringToState("XO.|...|...");
+        aiService.ponder(state);
+        // The pondered results have not reached the game thread yet
+        aiService.requestMove(Ai.setField(state, 4, true), collect);
+        plat.awaitWorker();
+        plat.runFrame();
+        assertThat(results).hasSize(1);
+        assertThat(aiService.ponderHits.get()).isEqualTo(0);
+        assertThat(aiService.ponderMisses.get()).isEqualTo(1);
+        assertThat(aiService.ponderHitRate()).isEqualTo(0.0);
+    }
+
+    @Test
+    public void shouldNotCountRequestsWithoutPondering() throws Exception {
+        aiService.requestMove(Ai.emptyState, collect);
+        plat.awaitWorker();
+        plat.runFrame();
+        assertThat(aiService.ponderHits.get()).isEqualTo(0);
+        assertThat(aiService.ponderMisses.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldDropPonderedResultsOfOldPosition() throws Exception {
+        int state = Ai.stringToState("XO.|...|...");
+        aiService.ponder(state);
+        plat.awaitWorker();
+        plat.runFrame();
+        aiService.ponder(Ai.stringToState("XO.|.X.|..O"));
+        aiService.requestMove(Ai.setField(state, 4, true), collect);
+        plat.awaitWorker();
+        plat.runFrame();
+        assertThat(results).hasSize(1);
+        assertThat(aiService.ponderMisses.get()).isEqualTo(1);
+    }
+
+    private static class TestPlatform extends StubPlatform {
+        final ExecutorService worker = Executors.newSingleThreadExecutor();
+        final Queue<Runnable> frameQueue = new ConcurrentLinkedQueue<>();
+        private final Exec exec = new Exec() {
+            @Override
+            public void invokeLater(Runnable action) {
+                frameQueue.add(action);
+            }
+
+            @Override
+            public boolean isAsyncSupported() {
+                return true;
+            }
+
+            @Override
+            public void invokeAsync(Runnable action) {
+                worker.execute(action);
+            }
+        };
+
+        @Override
+        public Exec exec() {
+            return exec;
+        }
+
+        void awaitWorker() throws Exception {
+            worker.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }).get();
+        }
+
+        void runFrame() {
+            Runnable action;
+            while ((action = frameQueue.poll()) != null) action.run();
+        }
+    }
+}
@@ -2,6 +2,11 @@ package de.cdietze.tictactoe.core;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class AiTest {
@@ -81,6 +86,15 @@ public class AiTest {
         assertThat(Ai.hasOWon(Ai.stringToState("O...O...O"))).isTrue();
     }
 
+    @Test
+    public void testHasWonWithMove() {
+        int state = Ai.stringToState("XXXOO....");
+        assertThat(Ai.hasWonWithMove(state, 2, true)).isTrue();
+        assertThat(Ai.hasWonWithMove(state, 4, false)).isFalse();
+        assertThat(Ai.hasWonWithMove(Ai.stringToState("O..XO.X.O"), 8, false)).isTrue();
+        assertThat(Ai.hasWonWithMove(Ai.stringToState("O..XO.X.O"), 6, true)).isFalse();
+    }
+
     @Test
     public void testIsDraw() {
         assertThat(Ai.isDraw(Ai.emptyState)).isFalse();
@@ -121,4 +135,31 @@ public class AiTest {
     public void shouldPreventLossInOneWithO() {
         assertThat(Ai.eval(Ai.stringToState("XO.|X..|...")).bestMoveIndex).isEqualTo(Ai.index(0, 2));
     }
+
+    @Test
+    public void evalShouldMatchMinimaxForAllReachableStates() {
+        for (int state : reachableStates()) {
+            Ai.EvalResult expected = Ai.minimax(state);
+            Ai.EvalResult actual = Ai.eval(state);
+            assertThat(actual.rating).as(Ai.stateToString(state)).isEqualTo(expected.rating);
+            assertThat(actual.bestMoveIndex).as(Ai.stateToString(state)).isEqualTo(expected.bestMoveIndex);
+            assertThat(actual.depth).as(Ai.stateToString(state)).isEqualTo(expected.depth);
+        }
+    }
+
+    static List<Integer> reachableStates() {
+        Set<Integer> states = new LinkedHashSet<>();
+        collectReachableStates(Ai.emptyState, states);
+        return new ArrayList<>(states);
+    }
+
+    private static void collectReachableStates(int state, Set<Integer> states) {
+        if (!states.add(state)) return;
+        if (Ai.hasXWon(state) || Ai.hasOWon(state) || Ai.isDraw(state)) return;
+        boolean isXToMove = Ai.isXToMove(state);
+        for (int i = 0; i < 9; i++) {
+            if (Ai.getField(state, i) != Ai.Field.EMPTY) continue;
+            collectReachableStates(Ai.setField(state, i, isXToMove), states);
+        }
+    }
 }
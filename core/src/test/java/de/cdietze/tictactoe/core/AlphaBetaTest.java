@@ -0,0 +1,67 @@
+package de.cdietze.tictactoe.core;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AlphaBetaTest {
+
+    @Test
+    public void shouldMatchMinimaxForAllReachableStates() {
+        AlphaBeta alphaBeta = new AlphaBeta();
+        for (int state : AiTest.reachableStates()) {
+            Ai.EvalResult expected = Ai.minimax(state);
+            Ai.EvalResult actual = alphaBeta.eval(state);
+            assertThat(actual.rating).as(Ai.stateToString(state)).isEqualTo(expected.rating);
+            assertThat(actual.bestMoveIndex).as(Ai.stateToString(state)).isEqualTo(expected.bestMoveIndex);
+            assertThat(actual.depth).as(Ai.stateToString(state)).isEqualTo(expected.depth);
+        }
+    }
+
+    @Test
+    public void shouldMatchMinimaxWithTranspositionTable() {
+        AlphaBeta alphaBeta = new AlphaBeta(new TranspositionTable());
+        for (int state : AiTest.reachableStates()) {
+            Ai.EvalResult expected = Ai.minimax(state);
+            Ai.EvalResult actual = alphaBeta.eval(state);
+            assertThat(actual.rating).as(Ai.stateToString(state)).isEqualTo(expected.rating);
+            assertThat(actual.bestMoveIndex).as(Ai.stateToString(state)).isEqualTo(expected.bestMoveIndex);
+            assertThat(actual.depth).as(Ai.stateToString(state)).isEqualTo(expected.depth);
+        }
+    }
+
+    @Test
+    public void transpositionTableShouldReduceNodeCount() {
+        AlphaBeta plain = new AlphaBeta();
+        plain.eval(Ai.emptyState);
+        TranspositionTable transpositionTable = new TranspositionTable();
+        AlphaBeta cached = new AlphaBeta(transpositionTable);
+        cached.eval(Ai.emptyState);
+        assertThat(cached.nodeCount()).isLessThan(plain.nodeCount() / 5);
+        assertThat(transpositionTable.hitCount()).isPositive();
+        assertThat(transpositionTable.missCount()).isPositive();
+    }
+
+    @Test
+    public void shouldPrune() {
+        AlphaBeta alphaBeta = new AlphaBeta();
+        alphaBeta.eval(Ai.emptyState);
+        // A full minimax search of the empty board visits 549946 nodes
+        assertThat(alphaBeta.nodeCount()).isLessThan(549946 / 10);
+    }
+
+    @Test
+    public void shouldCountSingleNodeForFinishedGame() {
+        AlphaBeta alphaBeta = new AlphaBeta();
+        alphaBeta.eval(Ai.stringToState("XXXOO...."));
+        assertThat(alphaBeta.nodeCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldBeSelectableAsStrategy() {
+        int state = Ai.stringToState("XO.XO....");
+        assertThat(Ai.eval(state, Ai.Strategy.ALPHA_BETA).bestMoveIndex).isEqualTo(Ai.index(0, 2));
+        assertThat(Ai.eval(state, Ai.Strategy.MINIMAX).bestMoveIndex).isEqualTo(Ai.index(0, 2));
+        assertThat(Ai.eval(state, Ai.Strategy.TABLE).bestMoveIndex).isEqualTo(Ai.index(0, 2));
+    }
+}
@@ -0,0 +1,36 @@
+package de.cdietze.tictactoe.core;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AnalysisTest {
+
+    @Test
+    public void shouldMatchEvalOfEveryMove() {
+        for (int state : AiTest.reachableStates()) {
+            Analysis analysis = Ai.analyze(state);
+            boolean isOver = Ai.hasXWon(state) || Ai.hasOWon(state) || Ai.isDraw(state);
+            for (int i = 0; i < 9; i++) {
+                boolean isLegal = !isOver && Ai.getField(state, i) == Ai.Field.EMPTY;
+                assertThat(analysis.isLegal(i)).isEqualTo(isLegal);
+                if (!isLegal) continue;
+                int child = Ai.setField(state, i, Ai.isXToMove(state));
+                Ai.EvalResult childResult = Ai.minimax(child);
+                assertThat(analysis.rating(i)).as(Ai.stateToString(state)).isEqualTo(-childResult.rating);
+                assertThat(analysis.depth(i)).as(Ai.stateToString(state)).isEqualTo(childResult.depth + 1);
+            }
+            Ai.EvalResult expected = Ai.eval(state);
+            assertThat(analysis.bestMoveIndex()).as(Ai.stateToString(state)).isEqualTo(expected.bestMoveIndex);
+            if (expected.bestMoveIndex >= 0) {
+                assertThat(analysis.rating(expected.bestMoveIndex)).isEqualTo(expected.rating);
+                assertThat(analysis.depth(expected.bestMoveIndex)).isEqualTo(expected.depth);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMarkedField() {
+        Ai.analyze(Ai.stringToState("X..|...|...")).rating(0);
+    }
+}
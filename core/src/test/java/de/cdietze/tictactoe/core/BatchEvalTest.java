@@ -0,0 +1,92 @@
+package de.cdietze.tictactoe.core;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BatchEvalTest {
+
+    @Test
+    public void shouldMatchSingleEvalWithTable() {
+        int[] states = reachableStates();
+        int[] ratings = new int[states.length], bestMoves = new int[states.length], depths = new int[states.length];
+        new BatchEval().eval(states, ratings, bestMoves, depths);
+        for (int n = 0; n < states.length; n++) {
+            Ai.EvalResult expected = Ai.eval(states[n]);
+            assertThat(ratings[n]).isEqualTo(expected.rating);
+            assertThat(bestMoves[n]).isEqualTo(expected.bestMoveIndex);
+            assertThat(depths[n]).isEqualTo(expected.depth);
+        }
+    }
+
+    @Test
+    public void shouldFindEquallyGoodMovesWithAlphaBeta() {
+        int[] states = reachableStates();
+        int[] ratings = new int[states.length], bestMoves = new int[states.length], depths = new int[states.length];
+        BatchEval batchEval = new BatchEval(Ai.Strategy.ALPHA_BETA);
+        batchEval.eval(states, ratings, bestMoves, depths);
+        // 765 positions up to symmetry
+        assertThat(batchEval.searchCount()).isEqualTo(765);
+        for (int n = 0; n < states.length; n++) {
+            int state = states[n];
+            Ai.EvalResult expected = Ai.eval(state);
+            assertThat(ratings[n]).as(Ai.stateToString(state)).isEqualTo(expected.rating);
+            assertThat(depths[n]).as(Ai.stateToString(state)).isEqualTo(expected.depth);
+            if (expected.bestMoveIndex < 0) {
+                assertThat(bestMoves[n]).isEqualTo(-1);
+                continue;
+            }
+            // An equally good move: the opponent's result after it is the negated rating one move closer to the end
+            Ai.EvalResult next = Ai.eval(Ai.setField(state, bestMoves[n], Ai.isXToMove(state)));
+            assertThat(-next.rating).as(Ai.stateToString(state)).isEqualTo(expected.rating);
+            assertThat(next.depth + 1).as(Ai.stateToString(state)).isEqualTo(expected.depth);
+        }
+    }
+
+    @Test
+    public void shouldEvaluateSymmetricStatesOnce() {
+        int corner = Ai.setField(Ai.emptyState, 0, true);
+        int otherCorner = Ai.setField(Ai.emptyState, 8, true);
+        int edge = Ai.setField(Ai.emptyState, 1, true);
+        int[] states = {corner, otherCorner, corner, edge, Ai.emptyState, edge};
+        int[] ratings = new int[6], bestMoves = new int[6], depths = new int[6];
+        BatchEval batchEval = new BatchEval(Ai.Strategy.MINIMAX);
+        batchEval.eval(states, ratings, bestMoves, depths);
+        assertThat(batchEval.searchCount()).isEqualTo(3);
+        assertThat(bestMoves[1]).isEqualTo(Symmetry.unmapIndex(Symmetry.canonicalSymmetry(otherCorner),
+                Symmetry.mapIndex(Symmetry.canonicalSymmetry(corner), bestMoves[0])));
+    }
+
+    @Test
+    public void shouldOnlyWriteTheGivenRange() {
+        int[] states = {Ai.emptyState, Ai.emptyState, Ai.emptyState};
+        int[] ratings = {7, 7, 7}, bestMoves = {7, 7, 7}, depths = {7, 7, 7};
+        new BatchEval().eval(states, 1, 2, ratings, bestMoves, depths);
+        assertThat(depths).containsExactly(7, 9, 7);
+        assertThat(ratings).containsExactly(7, 0, 7);
+    }
+
+    @Test
+    public void shouldSearchAgainInNextBatch() {
+        int[] states = {Ai.setField(Ai.emptyState, 4, true)};
+        int[] ratings = new int[1], bestMoves = new int[1], depths = new int[1];
+        BatchEval batchEval = new BatchEval(Ai.Strategy.ALPHA_BETA);
+        batchEval.eval(states, ratings, bestMoves, depths);
+        batchEval.eval(states, ratings, bestMoves, depths);
+        assertThat(batchEval.searchCount()).isEqualTo(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectShortOutput() {
+        new BatchEval().eval(new int[3], new int[3], new int[2], new int[3]);
+    }
+
+    private static int[] reachableStates() {
+        List<Integer> reachable = AiTest.reachableStates();
+        int[] states = new int[reachable.size()];
+        for (int n = 0; n < states.length; n++) states[n] = reachable.get(n);
+        return states;
+    }
+}
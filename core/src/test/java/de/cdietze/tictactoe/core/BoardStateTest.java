@@ -0,0 +1,174 @@
+package de.cdietze.tictactoe.core;
+
+import org.junit.Test;
+import react.Slot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoardStateTest {
+
+    @Test
+    public void shouldAlternatePlayers() {
+        BoardState boardState = new BoardState();
+        boardState.tryToMark(0);
+        boardState.tryToMark(1);
+        assertThat(boardState.fieldValue(0).get()).isEqualTo(BoardState.FieldType.X);
+        assertThat(boardState.fieldValue(1).get()).isEqualTo(BoardState.FieldType.O);
+        assertThat(boardState.isXToMove.get()).isTrue();
+    }
+
+    @Test
+    public void shouldIgnoreMarkedField() {
+        BoardState boardState = new BoardState();
+        boardState.tryToMark(4);
+        boardState.tryToMark(4);
+        assertThat(boardState.fieldValue(4).get()).isEqualTo(BoardState.FieldType.X);
+        assertThat(boardState.isXToMove.get()).isFalse();
+    }
+
+    @Test
+    public void shouldDetectWin() {
+        BoardState boardState = markAll(0, 3, 1, 4, 2);
+        assertThat(boardState.gameState.get()).isEqualTo(BoardState.GameState.X_WON);
+        boardState.tryToMark(5);
+        assertThat(boardState.fieldValue(5).get()).isEqualTo(BoardState.FieldType.EMPTY);
+    }
+
+    @Test
+    public void shouldDetectDraw() {
+        BoardState boardState = markAll(0, 1, 2, 4, 3, 5, 7, 6, 8);
+        assertThat(boardState.gameState.get()).isEqualTo(BoardState.GameState.DRAW);
+    }
+
+    @Test
+    public void shouldKeepAiStateInSync() {
+        BoardState boardState = markAll(4, 0, 8);
+        assertThat(boardState.aiState()).isEqualTo(Ai.stringToState("O..|.X.|..X"));
+    }
+
+    @Test
+    public void shouldOnlyNotifyChangedFields() {
+        BoardState boardState = markAll(4, 0);
+        final List<Integer> notified = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            final int fieldIndex = i;
+            boardState.fieldValue(i).connect(new Slot<BoardState.FieldType>() {
+                @Override
+                public void onEmit(BoardState.FieldType event) {
+                    notified.add(fieldIndex);
+                }
+            });
+        }
+        boardState.tryToMark(8);
+        assertThat(notified).containsExactly(8);
+        notified.clear();
+        // Field 4 stays X, field 0 turns from O into X, field 8 is cleared and field 2 is marked
+        boardState.setAiState(Ai.stringToState("X.O|.X.|..."));
+        assertThat(notified).containsExactly(0, 2, 8);
+    }
+
+    @Test
+    public void shouldDeriveGameStateFromAiState() {
+        BoardState boardState = new BoardState();
+        boardState.setAiState(Ai.stringToState("OOO|XX.|X.X"));
+        assertThat(boardState.gameState.get()).isEqualTo(BoardState.GameState.O_WON);
+        assertThat(boardState.isXToMove.get()).isFalse();
+        boardState.setAiState(Ai.emptyState);
+        assertThat(boardState.gameState.get()).isEqualTo(BoardState.GameState.RUNNING);
+        assertThat(boardState.fieldValue(0).get()).isEqualTo(BoardState.FieldType.EMPTY);
+    }
+
+    @Test
+    public void shouldUndoAndRedo() {
+        BoardState boardState = markAll(4, 0, 8);
+        boardState.undo();
+        assertThat(boardState.aiState()).isEqualTo(Ai.stringToState("O..|.X.|..."));
+        assertThat(boardState.isXToMove.get()).isTrue();
+        assertThat(boardState.ply.get()).isEqualTo(2);
+        boardState.redo();
+        assertThat(boardState.aiState()).isEqualTo(Ai.stringToState("O..|.X.|..X"));
+        assertThat(boardState.canRedo()).isFalse();
+    }
+
+    @Test
+    public void shouldUndoWin() {
+        BoardState boardState = markAll(0, 3, 1, 4, 2);
+        boardState.undo();
+        assertThat(boardState.gameState.get()).isEqualTo(BoardState.GameState.RUNNING);
+        boardState.tryToMark(5);
+        assertThat(boardState.fieldValue(5).get()).isEqualTo(BoardState.FieldType.X);
+    }
+
+    @Test
+    public void shouldDiscardRedoOnNewMove() {
+        BoardState boardState = markAll(4, 0, 8);
+        boardState.jumpToPly(1);
+        boardState.tryToMark(2);
+        assertThat(boardState.historyLength()).isEqualTo(2);
+        assertThat(boardState.historyMove(0)).isEqualTo(4);
+        assertThat(boardState.historyMove(1)).isEqualTo(2);
+        assertThat(boardState.canRedo()).isFalse();
+    }
+
+    @Test
+    public void shouldJumpToAnyPly() {
+        int[] moves = {0, 1, 2, 4, 3, 5, 7, 6, 8};
+        BoardState boardState = markAll(moves);
+        BoardState replay = new BoardState();
+        for (int p = 0; p <= moves.length; p++) {
+            if (p > 0) replay.tryToMark(moves[p - 1]);
+            boardState.jumpToPly(p);
+            assertThat(boardState.aiState()).isEqualTo(replay.aiState());
+            assertThat(boardState.gameState.get()).isEqualTo(replay.gameState.get());
+            assertThat(boardState.isXToMove.get()).isEqualTo(replay.isXToMove.get());
+        }
+        boardState.jumpToPly(0);
+        assertThat(boardState.canUndo()).isFalse();
+        assertThat(boardState.historyLength()).isEqualTo(9);
+    }
+
+    @Test
+    public void shouldNotifyOnlyRestoredFields() {
+        BoardState boardState = markAll(4, 0, 8, 2);
+        final List<Integer> notified = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            final int fieldIndex = i;
+            boardState.fieldValue(i).connect(new Slot<BoardState.FieldType>() {
+                @Override
+                public void onEmit(BoardState.FieldType event) {
+                    notified.add(fieldIndex);
+                }
+            });
+        }
+        boardState.jumpToPly(1);
+        assertThat(notified).containsExactly(0, 2, 8);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectPlyBeyondHistory() {
+        markAll(4, 0).jumpToPly(3);
+    }
+
+    @Test
+    public void shouldStartHistoryAtSetState() {
+        BoardState boardState = markAll(4, 0);
+        boardState.setAiState(Ai.stringToState("X..|...|..."));
+        assertThat(boardState.ply.get()).isEqualTo(0);
+        assertThat(boardState.canUndo()).isFalse();
+        boardState.tryToMark(8);
+        boardState.undo();
+        assertThat(boardState.aiState()).isEqualTo(Ai.stringToState("X..|...|..."));
+    }
+
+    private static BoardState markAll(int... fieldIndices) {
+        BoardState boardState = new BoardState();
+        for (int fieldIndex : fieldIndices) {
+            assertThat(boardState.gameState.get()).isEqualTo(BoardState.GameState.RUNNING);
+            boardState.tryToMark(fieldIndex);
+        }
+        return boardState;
+    }
+}
@@ -0,0 +1,76 @@
+package de.cdietze.tictactoe.core;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MctsAiTest {
+
+    @Test
+    public void shouldKeepPerfectPlayRatingOnTicTacToe() {
+        MctsAi ai = new MctsAi(MnkGame.TIC_TAC_TOE);
+        for (int aiState : AiTest.reachableStates()) {
+            if (Ai.hasXWon(aiState) || Ai.hasOWon(aiState) || Ai.isDraw(aiState)) continue;
+            int move = ai.search(MnkState.fromAiState(aiState), SearchLimits.nodes(2000)).result.bestMoveIndex;
+            int next = Ai.setField(aiState, move, Ai.isXToMove(aiState));
+            assertThat(-Ai.eval(next).rating).as(Ai.stateToString(aiState)).isEqualTo(Ai.eval(aiState).rating);
+        }
+    }
+
+    @Test
+    public void shouldCountPlayouts() {
+        SearchResult result = new MctsAi(MnkGame.TIC_TAC_TOE).search(MnkGame.TIC_TAC_TOE.newState(),
+                SearchLimits.nodes(500));
+        assertThat(result.nodeCount).isEqualTo(500);
+        assertThat(result.isSolved).isFalse();
+        assertThat(result.completedDepth).isGreaterThan(1);
+        assertThat(result.nodesPerSecond()).isGreaterThan(0);
+    }
+
+    @Test
+    public void shouldBeRepeatable() {
+        MnkGame game = new MnkGame(7, 6, 4);
+        MnkState state = game.parse("...X...|..OX...|...O...|.......|.......|.......");
+        int first = new MctsAi(game).search(state, SearchLimits.nodes(3000)).result.bestMoveIndex;
+        int second = new MctsAi(game).search(state, SearchLimits.nodes(3000)).result.bestMoveIndex;
+        assertThat(second).isEqualTo(first);
+    }
+
+    @Test
+    public void shouldLeaveStateUnchanged() {
+        MnkState state = MnkGame.TIC_TAC_TOE.parse("X..|.O.|...");
+        new MctsAi(MnkGame.TIC_TAC_TOE).search(state, SearchLimits.nodes(1000));
+        assertThat(state.toString()).isEqualTo("X..\n.O.\n...");
+        assertThat(state.markCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldWinInOneOnLargeBoard() {
+        MnkGame game = new MnkGame(15, 15, 5);
+        MnkState state = game.newState();
+        for (int x = 3; x < 7; x++) state.setField(game.index(x, 7), true);
+        for (int x = 3; x < 7; x++) state.setField(game.index(x, 9), false);
+        MctsAi ai = new MctsAi(game);
+        Ai.EvalResult result = ai.search(state, SearchLimits.nodes(20000)).result;
+        assertThat(result.bestMoveIndex).isIn(game.index(2, 7), game.index(7, 7));
+        assertThat(ai.bestMoveWinRate()).isGreaterThan(0.9);
+    }
+
+    @Test
+    public void shouldKeepPlayingWithFullArena() {
+        MnkGame game = new MnkGame(4, 4, 3);
+        MctsAi ai = new MctsAi(game, 100, 1);
+        SearchResult result = ai.search(game.newState(), SearchLimits.nodes(5000));
+        assertThat(result.nodeCount).isEqualTo(5000);
+        assertThat(ai.treeSize()).isLessThanOrEqualTo(100);
+        assertThat(result.result.bestMoveIndex).isBetween(0, 15);
+    }
+
+    @Test
+    public void shouldReportFinishedGame() {
+        MnkState state = MnkGame.TIC_TAC_TOE.parse("XXX|OO.|...");
+        Ai.EvalResult result = new MctsAi(MnkGame.TIC_TAC_TOE).search(state, SearchLimits.nodes(100)).result;
+        assertThat(result.rating).isEqualTo(-100);
+        assertThat(result.bestMoveIndex).isEqualTo(-1);
+    }
+}
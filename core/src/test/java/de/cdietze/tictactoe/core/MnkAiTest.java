@@ -0,0 +1,138 @@
+package de.cdietze.tictactoe.core;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MnkAiTest {
+
+    @Test
+    public void shouldMatchMinimaxOnTicTacToe() {
+        MnkAi ai = new MnkAi(MnkGame.TIC_TAC_TOE);
+        for (int aiState : AiTest.reachableStates()) {
+            Ai.EvalResult expected = Ai.minimax(aiState);
+            Ai.EvalResult actual = ai.eval(MnkState.fromAiState(aiState));
+            assertThat(actual.rating).as(Ai.stateToString(aiState)).isEqualTo(expected.rating);
+            assertThat(actual.bestMoveIndex).as(Ai.stateToString(aiState)).isEqualTo(expected.bestMoveIndex);
+            assertThat(actual.depth).as(Ai.stateToString(aiState)).isEqualTo(expected.depth);
+        }
+    }
+
+    @Test
+    public void shouldMatchMinimaxWithTranspositionTable() {
+        for (SharedTranspositionTable.Replacement replacement : SharedTranspositionTable.Replacement.values()) {
+            MnkAi ai = new MnkAi(MnkGame.TIC_TAC_TOE, null, new SharedTranspositionTable(10, replacement));
+            for (int aiState : AiTest.reachableStates()) {
+                Ai.EvalResult expected = Ai.minimax(aiState);
+                Ai.EvalResult actual = ai.eval(MnkState.fromAiState(aiState));
+                assertThat(actual.rating).as(Ai.stateToString(aiState)).isEqualTo(expected.rating);
+                assertThat(actual.bestMoveIndex).as(Ai.stateToString(aiState)).isEqualTo(expected.bestMoveIndex);
+                assertThat(actual.depth).as(Ai.stateToString(aiState)).isEqualTo(expected.depth);
+            }
+        }
+    }
+
+    @Test
+    public void transpositionTableShouldSaveNodes() {
+        MnkGame game = new MnkGame(4, 4, 3);
+        MnkAi plain = new MnkAi(game);
+        SharedTranspositionTable table =
+                new SharedTranspositionTable(16, SharedTranspositionTable.Replacement.TWO_TIER, true);
+        MnkAi cached = new MnkAi(game, null, table);
+        Ai.EvalResult expected = plain.eval(game.newState());
+        Ai.EvalResult actual = cached.eval(game.newState());
+        assertThat(actual.rating).isEqualTo(expected.rating);
+        assertThat(actual.depth).isEqualTo(expected.depth);
+        assertThat(cached.nodeCount()).isLessThan(plain.nodeCount());
+        assertThat(table.hitCount()).isGreaterThan(0);
+    }
+
+    @Test
+    public void shouldLeaveStateUnchanged() {
+        MnkState state = MnkGame.TIC_TAC_TOE.parse("X..|.O.|...");
+        new MnkAi(MnkGame.TIC_TAC_TOE).eval(state);
+        assertThat(state.toString()).isEqualTo("X..\n.O.\n...");
+    }
+
+    @Test
+    public void shouldWinInOneOnLargeBoard() {
+        MnkGame game = new MnkGame(15, 15, 5);
+        MnkState state = game.newState();
+        for (int x = 3; x < 7; x++) state.setField(game.index(x, 7), true);
+        for (int x = 3; x < 7; x++) state.setField(game.index(x, 9), false);
+        Ai.EvalResult result = new MnkAi(game).eval(state, 2);
+        assertThat(result.rating).isEqualTo(100);
+        assertThat(result.depth).isEqualTo(1);
+        assertThat(result.bestMoveIndex).isIn(game.index(2, 7), game.index(7, 7));
+    }
+
+    @Test
+    public void shouldBlockOpponentOnConnectFourBoard() {
+        MnkGame game = new MnkGame(7, 6, 4);
+        MnkState state = game.parse(""
+                + "XXX....\n"
+                + "OO.....\n"
+                + ".......\n"
+                + ".......\n"
+                + ".......\n"
+                + ".......");
+        // X threatens to complete the top row, O has to block
+        Ai.EvalResult result = new MnkAi(game).eval(state, 2);
+        assertThat(result.bestMoveIndex).isEqualTo(game.index(3, 0));
+    }
+
+    @Test
+    public void shouldReportDepthLimitAsUndecided() {
+        MnkGame game = new MnkGame(4, 4, 4);
+        Ai.EvalResult result = new MnkAi(game).eval(game.newState(), 3);
+        assertThat(result.rating).isZero();
+        assertThat(result.depth).isEqualTo(3);
+    }
+
+    @Test
+    public void searchShouldSolveTicTacToe() {
+        MnkAi ai = new MnkAi(MnkGame.TIC_TAC_TOE);
+        SearchResult result = ai.search(MnkGame.TIC_TAC_TOE.newState(), SearchLimits.NONE);
+        assertThat(result.isSolved).isTrue();
+        assertThat(result.completedDepth).isEqualTo(9);
+        assertThat(result.result.rating).isZero();
+    }
+
+    @Test
+    public void searchShouldFindFastestWin() {
+        MnkGame game = new MnkGame(15, 15, 5);
+        MnkState state = game.newState();
+        for (int x = 5; x < 8; x++) state.setField(game.index(x, 7), true);
+        state.setField(game.index(0, 0), false);
+        state.setField(game.index(14, 14), false);
+        state.setField(game.index(0, 14), false);
+        // Extending the open three to an open four wins in three moves
+        SearchResult result = new MnkAi(game).search(state, SearchLimits.depth(5));
+        assertThat(result.result.rating).isEqualTo(100);
+        assertThat(result.result.depth).isEqualTo(3);
+        assertThat(result.result.bestMoveIndex).isIn(game.index(4, 7), game.index(8, 7));
+        assertThat(result.isSolved).isTrue();
+        assertThat(result.completedDepth).isEqualTo(3);
+    }
+
+    @Test
+    public void searchShouldStopAtNodeBudget() {
+        MnkGame game = new MnkGame(15, 15, 5);
+        MnkState state = game.newState();
+        state.setField(game.index(7, 7), true);
+        SearchResult result = new MnkAi(game).search(state, SearchLimits.nodes(20000));
+        assertThat(result.result).isNotNull();
+        assertThat(result.result.bestMoveIndex).isBetween(0, game.fieldCount() - 1);
+        assertThat(result.completedDepth).isGreaterThanOrEqualTo(1);
+        assertThat(result.isSolved).isFalse();
+        assertThat(result.nodeCount).isLessThanOrEqualTo(20000);
+    }
+
+    @Test
+    public void searchShouldStopAtTimeBudget() {
+        MnkGame game = new MnkGame(15, 15, 5);
+        SearchResult result = new MnkAi(game).search(game.newState(), SearchLimits.millis(30));
+        assertThat(result.result).isNotNull();
+        assertThat(result.elapsedMillis).isLessThan(500);
+    }
+}
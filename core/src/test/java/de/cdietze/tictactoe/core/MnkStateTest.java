@@ -0,0 +1,149 @@
+package de.cdietze.tictactoe.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MnkStateTest {
+
+    private static final MnkGame GOMOKU = new MnkGame(15, 15, 5);
+    private static final MnkGame CONNECT_FOUR = new MnkGame(7, 6, 4);
+
+    @Test
+    public void shouldMatchAiEncodingForAllReachableStates() {
+        for (int aiState : AiTest.reachableStates()) {
+            MnkState state = MnkState.fromAiState(aiState);
+            assertThat(state.toString()).isEqualTo(Ai.stateToString(aiState));
+            assertThat(state.isXToMove()).isEqualTo(Ai.isXToMove(aiState));
+            assertThat(state.hasXWon()).isEqualTo(Ai.hasXWon(aiState));
+            assertThat(state.hasOWon()).isEqualTo(Ai.hasOWon(aiState));
+            assertThat(state.isFull()).isEqualTo(Ai.isDraw(aiState));
+        }
+    }
+
+    @Test
+    public void shouldParseAndPrint() {
+        String board = "X...\n.O..\n..X.\n....";
+        assertThat(new MnkGame(4, 4, 4).parse(board).toString()).isEqualTo(board);
+    }
+
+    @Test
+    public void shouldUndoMoves() {
+        MnkState state = GOMOKU.newState();
+        state.setField(GOMOKU.index(7, 7), true);
+        state.setField(GOMOKU.index(8, 7), false);
+        state.clearField(GOMOKU.index(8, 7));
+        assertThat(state.getField(GOMOKU.index(8, 7))).isEqualTo(Ai.Field.EMPTY);
+        assertThat(state.markCount()).isEqualTo(1);
+        assertThat(state.isXToMove()).isFalse();
+    }
+
+    @Test
+    public void shouldDetectRowsAcrossWordBoundaries() {
+        MnkState state = GOMOKU.newState();
+        for (int x = 10; x < 15; x++) state.setField(GOMOKU.index(x, 4), true);
+        assertThat(state.hasXWon()).isTrue();
+        assertThat(state.hasOWon()).isFalse();
+    }
+
+    @Test
+    public void shouldNotWrapAroundRows() {
+        MnkState state = GOMOKU.newState();
+        for (int x = 12; x < 15; x++) state.setField(GOMOKU.index(x, 4), true);
+        for (int x = 0; x < 2; x++) state.setField(GOMOKU.index(x, 5), true);
+        assertThat(state.hasXWon()).isFalse();
+    }
+
+    @Test
+    public void shouldNotWrapAroundDiagonals() {
+        MnkState state = CONNECT_FOUR.newState();
+        // Down-left from the left edge would continue at the right edge of the next row without the spare bit
+        state.setField(CONNECT_FOUR.index(1, 0), false);
+        state.setField(CONNECT_FOUR.index(0, 1), false);
+        state.setField(CONNECT_FOUR.index(6, 1), false);
+        state.setField(CONNECT_FOUR.index(5, 2), false);
+        assertThat(state.hasOWon()).isFalse();
+    }
+
+    @Test
+    public void shouldDetectDiagonals() {
+        MnkState state = GOMOKU.newState();
+        for (int i = 0; i < 5; i++) state.setField(GOMOKU.index(14 - i, 10 + i), false);
+        assertThat(state.hasOWon()).isTrue();
+        MnkState other = CONNECT_FOUR.newState();
+        for (int i = 0; i < 4; i++) other.setField(CONNECT_FOUR.index(2 + i, 1 + i), true);
+        assertThat(other.hasXWon()).isTrue();
+    }
+
+    @Test
+    public void shouldDetectColumns() {
+        MnkState state = CONNECT_FOUR.newState();
+        for (int y = 2; y < 6; y++) state.setField(CONNECT_FOUR.index(6, y), true);
+        assertThat(state.hasXWon()).isTrue();
+    }
+
+    @Test
+    public void shouldDetectWinThroughLastMove() {
+        for (int aiState : AiTest.reachableStates()) {
+            MnkState state = MnkState.fromAiState(aiState);
+            for (int i = 0; i < 9; i++) {
+                Ai.Field field = state.getField(i);
+                if (field == Ai.Field.EMPTY) continue;
+                boolean isX = field == Ai.Field.X;
+                assertThat(state.hasWonWithBit(MnkGame.TIC_TAC_TOE.toBit(i), isX))
+                        .isEqualTo(Ai.hasWonWithMove(aiState, i, isX));
+            }
+        }
+        MnkState state = GOMOKU.newState();
+        for (int i = 0; i < 5; i++) state.setField(GOMOKU.index(4 - i, 10 + i), false);
+        assertThat(state.hasWonWithBit(GOMOKU.toBit(GOMOKU.index(2, 12)), false)).isTrue();
+        assertThat(state.hasWonWithBit(GOMOKU.toBit(GOMOKU.index(2, 12)), true)).isFalse();
+    }
+
+    @Test
+    public void evaluationAndHashShouldFollowMarksAndUndo() {
+        MnkGame[] games = {MnkGame.TIC_TAC_TOE, CONNECT_FOUR, GOMOKU};
+        Random random = new Random(1);
+        for (MnkGame game : games) {
+            MnkState state = game.newState();
+            assertThat(state.evaluate()).isZero();
+            int[] marked = new int[game.fieldCount()];
+            int markedCount = 0;
+            for (int n = 0; n < 500; n++) {
+                boolean isClear = markedCount == game.fieldCount() || (markedCount > 0 && random.nextInt(3) == 0);
+                if (isClear) {
+                    int i = random.nextInt(markedCount);
+                    state.clearField(marked[i]);
+                    marked[i] = marked[--markedCount];
+                } else {
+                    int index;
+                    do {
+                        index = random.nextInt(game.fieldCount());
+                    } while (state.getField(index) != Ai.Field.EMPTY);
+                    state.setField(index, random.nextBoolean());
+                    marked[markedCount++] = index;
+                }
+                assertThat(state.evaluate()).as(state.toString()).isEqualTo(MnkEvaluator.scan(state));
+                assertThat(state.hash()).as(state.toString()).isEqualTo(game.parse(state.toString()).hash());
+            }
+            assertThat(state.copy().evaluate()).isEqualTo(state.evaluate());
+            assertThat(state.copy().hash()).isEqualTo(state.hash());
+        }
+    }
+
+    @Test
+    public void hashShouldNotDependOnMoveOrder() {
+        MnkState a = CONNECT_FOUR.parse("X.O....\n...X...\n.......\n.......\n.......\n.......");
+        MnkState b = CONNECT_FOUR.newState();
+        b.setField(CONNECT_FOUR.index(3, 1), true);
+        b.setField(CONNECT_FOUR.index(2, 0), false);
+        b.setField(CONNECT_FOUR.index(0, 0), true);
+        assertThat(b.hash()).isEqualTo(a.hash());
+        assertThat(CONNECT_FOUR.newState().hash()).isZero();
+        b.clearField(CONNECT_FOUR.index(0, 0));
+        b.setField(CONNECT_FOUR.index(0, 0), false);
+        assertThat(b.hash()).isNotEqualTo(a.hash());
+    }
+}
@@ -0,0 +1,61 @@
+package de.cdietze.tictactoe.core;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OpeningBookTest {
+
+    private static final MnkGame CONNECT_FOUR = new MnkGame(7, 6, 4);
+
+    @Test
+    public void shouldLookUpStoredPositions() {
+        OpeningBook book = OpeningBook.read(sampleBook().toBytes());
+        assertThat(book.size()).isEqualTo(2);
+        Ai.EvalResult result = book.lookup(CONNECT_FOUR.newState());
+        assertThat(result.bestMoveIndex).isEqualTo(CONNECT_FOUR.index(3, 2));
+        assertThat(result.rating).isEqualTo(0);
+        assertThat(result.depth).isEqualTo(8);
+        MnkState state = CONNECT_FOUR.newState();
+        state.setField(CONNECT_FOUR.index(3, 2), true);
+        result = book.lookup(state);
+        assertThat(result.bestMoveIndex).isEqualTo(CONNECT_FOUR.index(3, 3));
+        assertThat(result.rating).isEqualTo(-100);
+        assertThat(result.depth).isEqualTo(255);
+        state.setField(CONNECT_FOUR.index(3, 3), false);
+        assertThat(book.lookup(state)).isNull();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTruncatedBooks() {
+        byte[] data = sampleBook().toBytes();
+        byte[] truncated = new byte[data.length - 1];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        OpeningBook.read(truncated);
+    }
+
+    @Test
+    public void searchShouldPlayBookMoves() {
+        MnkAi ai = new MnkAi(CONNECT_FOUR, sampleBook());
+        SearchResult result = ai.search(CONNECT_FOUR.newState(), SearchLimits.depth(2));
+        assertThat(result.result.bestMoveIndex).isEqualTo(CONNECT_FOUR.index(3, 2));
+        assertThat(result.completedDepth).isEqualTo(8);
+        assertThat(result.isSolved).isFalse();
+        assertThat(result.nodeCount).isEqualTo(1);
+        MnkState outOfBook = CONNECT_FOUR.newState();
+        outOfBook.setField(0, true);
+        assertThat(ai.search(outOfBook, SearchLimits.depth(2)).nodeCount).isGreaterThan(1);
+    }
+
+    private static OpeningBook sampleBook() {
+        Map<Long, Ai.EvalResult> results = new HashMap<Long, Ai.EvalResult>();
+        MnkState state = CONNECT_FOUR.newState();
+        results.put(state.hash(), Ai.EvalResult.create(0, CONNECT_FOUR.index(3, 2), 8));
+        state.setField(CONNECT_FOUR.index(3, 2), true);
+        results.put(state.hash(), Ai.EvalResult.create(-100, CONNECT_FOUR.index(3, 3), 255));
+        return OpeningBook.create(CONNECT_FOUR, results);
+    }
+}
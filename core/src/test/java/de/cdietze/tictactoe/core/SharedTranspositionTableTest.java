@@ -0,0 +1,111 @@
+package de.cdietze.tictactoe.core;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SharedTranspositionTableTest {
+
+    private static final long HASH = 0x123456789ABCDEF0L;
+    /**
+     * A hash of another position in the same slot.
+     */
+    private static final long OTHER_HASH = HASH ^ (1L << 40);
+
+    @Test
+    public void shouldStoreAndProbe() {
+        SharedTranspositionTable table =
+                new SharedTranspositionTable(8, SharedTranspositionTable.Replacement.ALWAYS, true);
+        assertThat(table.probe(HASH)).isEqualTo(SharedTranspositionTable.NONE);
+        table.store(HASH, -MnkAi.WIN + 3, SharedTranspositionTable.UPPER_BOUND, 200, 239);
+        long entry = table.probe(HASH);
+        assertThat(SharedTranspositionTable.score(entry)).isEqualTo(-MnkAi.WIN + 3);
+        assertThat(SharedTranspositionTable.bound(entry)).isEqualTo(SharedTranspositionTable.UPPER_BOUND);
+        assertThat(SharedTranspositionTable.depth(entry)).isEqualTo(200);
+        assertThat(SharedTranspositionTable.moveBit(entry)).isEqualTo(239);
+        table.store(HASH, 0, SharedTranspositionTable.EXACT, 0, -1);
+        assertThat(SharedTranspositionTable.moveBit(table.probe(HASH))).isEqualTo(-1);
+        assertThat(table.probe(OTHER_HASH)).isEqualTo(SharedTranspositionTable.NONE);
+        assertThat(table.probeCount()).isEqualTo(4);
+        assertThat(table.hitCount()).isEqualTo(2);
+        assertThat(table.collisionCount()).isEqualTo(1);
+        assertThat(table.storeCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldOnlyCountIfAsked() {
+        SharedTranspositionTable table = new SharedTranspositionTable(8, SharedTranspositionTable.Replacement.ALWAYS);
+        table.store(HASH, 1, SharedTranspositionTable.EXACT, 1, 0);
+        assertThat(table.probe(HASH)).isNotEqualTo(SharedTranspositionTable.NONE);
+        assertThat(table.probeCount()).isZero();
+        assertThat(table.hitCount()).isZero();
+        assertThat(table.storeCount()).isZero();
+    }
+
+    @Test
+    public void shouldClampDeepSearches() {
+        SharedTranspositionTable table = new SharedTranspositionTable(8, SharedTranspositionTable.Replacement.ALWAYS);
+        table.store(HASH, 7, SharedTranspositionTable.LOWER_BOUND, 300, 12);
+        long entry = table.probe(HASH);
+        assertThat(SharedTranspositionTable.score(entry)).isEqualTo(7);
+        assertThat(SharedTranspositionTable.bound(entry)).isEqualTo(SharedTranspositionTable.LOWER_BOUND);
+        assertThat(SharedTranspositionTable.depth(entry)).isEqualTo(255);
+        assertThat(SharedTranspositionTable.moveBit(entry)).isEqualTo(12);
+    }
+
+    @Test
+    public void shouldFindTheEmptyBoard() {
+        SharedTranspositionTable table = new SharedTranspositionTable(4, SharedTranspositionTable.Replacement.ALWAYS);
+        assertThat(table.probe(0)).isEqualTo(SharedTranspositionTable.NONE);
+        table.store(0, 5, SharedTranspositionTable.EXACT, 1, 0);
+        assertThat(SharedTranspositionTable.score(table.probe(0))).isEqualTo(5);
+    }
+
+    @Test
+    public void alwaysShouldKeepTheLatestEntry() {
+        SharedTranspositionTable table = new SharedTranspositionTable(8, SharedTranspositionTable.Replacement.ALWAYS);
+        table.store(HASH, 1, SharedTranspositionTable.EXACT, 9, 0);
+        table.store(OTHER_HASH, 2, SharedTranspositionTable.EXACT, 1, 0);
+        assertThat(table.probe(HASH)).isEqualTo(SharedTranspositionTable.NONE);
+        assertThat(table.probe(OTHER_HASH)).isNotEqualTo(SharedTranspositionTable.NONE);
+    }
+
+    @Test
+    public void depthPreferredShouldKeepDeeperEntriesOfTheSameSearch() {
+        SharedTranspositionTable table =
+                new SharedTranspositionTable(8, SharedTranspositionTable.Replacement.DEPTH_PREFERRED);
+        table.store(HASH, 1, SharedTranspositionTable.EXACT, 9, 0);
+        table.store(OTHER_HASH, 2, SharedTranspositionTable.EXACT, 1, 0);
+        assertThat(table.probe(HASH)).isNotEqualTo(SharedTranspositionTable.NONE);
+        assertThat(table.probe(OTHER_HASH)).isEqualTo(SharedTranspositionTable.NONE);
+        table.newSearch();
+        table.store(OTHER_HASH, 2, SharedTranspositionTable.EXACT, 1, 0);
+        assertThat(table.probe(HASH)).isEqualTo(SharedTranspositionTable.NONE);
+        assertThat(table.probe(OTHER_HASH)).isNotEqualTo(SharedTranspositionTable.NONE);
+    }
+
+    @Test
+    public void twoTierShouldKeepBoth() {
+        SharedTranspositionTable table = new SharedTranspositionTable(8, SharedTranspositionTable.Replacement.TWO_TIER);
+        table.store(HASH, 1, SharedTranspositionTable.EXACT, 9, 0);
+        table.store(OTHER_HASH, 2, SharedTranspositionTable.EXACT, 1, 0);
+        table.store(OTHER_HASH ^ (1L << 41), 3, SharedTranspositionTable.EXACT, 1, 0);
+        assertThat(SharedTranspositionTable.score(table.probe(HASH))).isEqualTo(1);
+        assertThat(table.probe(OTHER_HASH)).isEqualTo(SharedTranspositionTable.NONE);
+        assertThat(SharedTranspositionTable.score(table.probe(OTHER_HASH ^ (1L << 41)))).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldReportOccupancy() {
+        SharedTranspositionTable table =
+                new SharedTranspositionTable(2, SharedTranspositionTable.Replacement.ALWAYS, true);
+        assertThat(table.capacity()).isEqualTo(4);
+        table.store(0, 0, SharedTranspositionTable.EXACT, 1, -1);
+        table.store(1, 0, SharedTranspositionTable.EXACT, 1, -1);
+        assertThat(table.occupancy()).isEqualTo(0.5);
+        assertThat(table.storeCount()).isEqualTo(2);
+        table.clear();
+        assertThat(table.occupancy()).isEqualTo(0.0);
+        assertThat(table.storeCount()).isZero();
+    }
+}
@@ -0,0 +1,54 @@
+package de.cdietze.tictactoe.core;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SymmetryTest {
+
+    @Test
+    public void identityShouldKeepState() {
+        int state = Ai.stringToState("XO.X.O..X");
+        assertThat(Symmetry.transform(0, state)).isEqualTo(state);
+    }
+
+    @Test
+    public void shouldRotateClockwise() {
+        assertThat(Ai.stateToString(Symmetry.transform(1, Ai.stringToState("XO.|...|...")))).isEqualTo("..X\n..O\n...");
+    }
+
+    @Test
+    public void shouldProduceEightDistinctImages() {
+        int state = Ai.stringToState("XO.|...|...");
+        Set<Integer> images = new HashSet<>();
+        for (int symmetry = 0; symmetry < Symmetry.COUNT; symmetry++) {
+            images.add(Symmetry.transform(symmetry, state));
+        }
+        assertThat(images).hasSize(8);
+    }
+
+    @Test
+    public void shouldMapFieldsLikeTheState() {
+        int state = Ai.stringToState("XO.|.X.|O..");
+        for (int symmetry = 0; symmetry < Symmetry.COUNT; symmetry++) {
+            int image = Symmetry.transform(symmetry, state);
+            for (int i = 0; i < 9; i++) {
+                assertThat(Ai.getField(image, Symmetry.mapIndex(symmetry, i))).isEqualTo(Ai.getField(state, i));
+                assertThat(Symmetry.unmapIndex(symmetry, Symmetry.mapIndex(symmetry, i))).isEqualTo(i);
+            }
+        }
+    }
+
+    @Test
+    public void symmetricStatesShouldShareCanonicalForm() {
+        for (int state : AiTest.reachableStates()) {
+            int canonical = Symmetry.canonical(state);
+            for (int symmetry = 0; symmetry < Symmetry.COUNT; symmetry++) {
+                assertThat(Symmetry.canonical(Symmetry.transform(symmetry, state))).isEqualTo(canonical);
+            }
+        }
+    }
+}
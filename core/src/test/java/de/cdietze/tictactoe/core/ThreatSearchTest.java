@@ -0,0 +1,245 @@
+package de.cdietze.tictactoe.core;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ThreatSearchTest {
+
+    private static final MnkGame GOMOKU = new MnkGame(15, 15, 5);
+
+    @Test
+    public void shouldWinInOne() {
+        MnkState state = gomoku(
+                "...............",
+                "..XXXX.........",
+                "..OOO..........",
+                "O..............");
+        SearchResult result = new ThreatSearch(GOMOKU).search(state, SearchLimits.NONE);
+        assertThat(result.isSolved).isTrue();
+        assertThat(result.result.rating).isEqualTo(100);
+        assertThat(result.result.depth).isEqualTo(1);
+        assertThat(result.result.bestMoveIndex).isIn(GOMOKU.index(1, 1), GOMOKU.index(6, 1));
+    }
+
+    @Test
+    public void shouldExtendOpenThreeToOpenFour() {
+        MnkState state = gomoku(
+                "O..............",
+                "...............",
+                ".....XXX.......",
+                "O.............O");
+        SearchResult result = new ThreatSearch(GOMOKU, 0).search(state, SearchLimits.NONE);
+        assertThat(result.result.depth).isEqualTo(3);
+        assertThat(result.result.bestMoveIndex).isIn(GOMOKU.index(4, 2), GOMOKU.index(8, 2));
+    }
+
+    @Test
+    public void shouldWinByContinuousFours() {
+        // The four on the row forces O to block on the right, then the column becomes an open four
+        MnkState state = gomoku(
+                "O.............O",
+                "...............",
+                "..OXXX.........",
+                "......X........",
+                "......X........",
+                "O.............O");
+        SearchResult result = new ThreatSearch(GOMOKU, 0).search(state, SearchLimits.NONE);
+        assertThat(result.isSolved).isTrue();
+        assertThat(result.result.depth).isEqualTo(5);
+        assertThat(result.result.bestMoveIndex).isEqualTo(GOMOKU.index(6, 2));
+        assertThat(new MnkAi(GOMOKU).eval(state, 3).rating).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldWinWithThreeWhenFoursAreNotEnough() {
+        MnkState state = GOMOKU.parse("...............|...............|...............|...............|.....XO..O....."
+                + "|.......XO......|.....OX.O......|.....X....O....|........OX.....|....X...OX.....|.........X....."
+                + "|...............|...............|...............|...............");
+        assertThat(new ThreatSearch(GOMOKU, 0).search(state, SearchLimits.NONE).isSolved).isFalse();
+        SearchResult result = new ThreatSearch(GOMOKU).search(state, SearchLimits.NONE);
+        assertThat(result.isSolved).isTrue();
+        assertThat(result.result.depth).isEqualTo(5);
+        assertThat(result.result.bestMoveIndex).isEqualTo(GOMOKU.index(8, 7));
+    }
+
+    @Test
+    public void shouldBlockFourBeforeAttacking() {
+        // O threatens to win at the left end of its four, X can't win first
+        MnkState state = gomoku(
+                ".OOOOX.........",
+                "...............",
+                "..XX...........",
+                "X..............");
+        SearchResult result = new ThreatSearch(GOMOKU).search(state, SearchLimits.NONE);
+        assertThat(result.isSolved).isFalse();
+        assertThat(result.result.bestMoveIndex).isEqualTo(-1);
+    }
+
+    @Test
+    public void shouldFindNothingOnEmptyBoard() {
+        SearchResult result = new ThreatSearch(GOMOKU).search(GOMOKU.newState(), SearchLimits.NONE);
+        assertThat(result.isSolved).isFalse();
+        assertThat(result.result.rating).isZero();
+    }
+
+    @Test
+    public void shouldStopAtNodeBudget() {
+        MnkState state = GOMOKU.parse("...............|...............|...............|...............|....O.........."
+                + "|....O...XXO....|.........OX....|.....O..X.O....|.....X.........|.....X..X.X....|.....O..O......"
+                + "|...............|...............|...............|...............");
+        SearchResult result = new ThreatSearch(GOMOKU).search(state, SearchLimits.nodes(100));
+        assertThat(result.isSolved).isFalse();
+        assertThat(result.nodeCount).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    public void winsShouldBeConfirmedBySearch() {
+        // Every found win must hold against all defenses, which a full-width proof to the same depth checks. Proofs of
+        // the long sequences of fours get too expensive, but those are mostly forced replies anyway.
+        MnkGame game = new MnkGame(6, 6, 4);
+        Random random = new Random(1);
+        int confirmed = 0;
+        for (int n = 0; n < 200; n++) {
+            MnkState state = game.newState();
+            int markCount = 6 + random.nextInt(8);
+            for (int m = 0; m < markCount && !state.hasXWon() && !state.hasOWon(); m++) {
+                int index;
+                do {
+                    index = random.nextInt(game.fieldCount());
+                } while (state.getField(index) != Ai.Field.EMPTY);
+                state.setField(index, state.isXToMove());
+            }
+            if (state.hasXWon() || state.hasOWon()) continue;
+            String before = state.toString();
+            SearchResult result = new ThreatSearch(game).search(state, SearchLimits.NONE);
+            assertThat(state.toString()).isEqualTo(before);
+            if (!result.isSolved || result.result.depth > 13) continue;
+            assertWinConfirmed(state, result.result);
+            ++confirmed;
+        }
+        assertThat(confirmed).isGreaterThan(100);
+    }
+
+    @Test
+    public void shouldNotFindWinThatIsRefutedAwayFromTheSequence() {
+        // O's three at 21 looked forced, but X wins in 7 after it and the position is lost for O
+        MnkGame game = new MnkGame(6, 6, 4);
+        MnkState state = game.parse("...X..|...X..|O.....|......|.X....|...O..");
+        SearchResult result = new ThreatSearch(game).search(state, SearchLimits.NONE);
+        if (result.isSolved) assertWinConfirmed(state, result.result);
+        assertThat(new MnkAi(game).eval(state, 8).rating).isEqualTo(-100);
+    }
+
+    @Test
+    public void mnkSearchShouldOnlyTakeRealThreatWins() {
+        // The pre-pass used to return move 10 as solved, which wins nothing
+        MnkGame game = new MnkGame(6, 6, 4);
+        MnkState state = game.parse("X.OXXO|......|....X.|...O..|.O....|..X...");
+        SearchResult threats = new ThreatSearch(game).search(state, SearchLimits.NONE);
+        if (threats.isSolved) assertWinConfirmed(state, threats.result);
+        SearchResult result = new MnkAi(game).search(state, SearchLimits.depth(9));
+        assertThat(result.result.bestMoveIndex).isNotEqualTo(10);
+        if (result.isSolved && result.result.rating == 100) assertWinConfirmed(state, result.result);
+    }
+
+    @Test
+    public void mnkSearchShouldTakeThreatWin() {
+        MnkState state = gomoku(
+                "O.............O",
+                "...............",
+                "..OXXX.........",
+                "......X........",
+                "......X........",
+                "O.............O");
+        SearchResult result = new MnkAi(GOMOKU).search(state, SearchLimits.depth(3));
+        assertThat(result.isSolved).isTrue();
+        assertThat(result.result.rating).isEqualTo(100);
+        assertThat(result.result.bestMoveIndex).isEqualTo(GOMOKU.index(6, 2));
+    }
+
+    /**
+     * Checks that the move of {@code result} wins against every defense within its depth.
+     */
+    private static void assertWinConfirmed(MnkState state, Ai.EvalResult result) {
+        MnkState next = state.copy();
+        boolean isAttackerX = next.isXToMove();
+        next.setField(result.bestMoveIndex, isAttackerX);
+        boolean isWin = stillWins(next, result.depth - 1, isAttackerX, new HashMap<Long, Boolean>());
+        assertThat(isWin).as(state + "\n" + result).isTrue();
+    }
+
+    /**
+     * Whether the player to move wins within {@code plies} moves. Only immediate wins and forced blocks are pruned,
+     * moves that make a four go first.
+     */
+    private static boolean wins(MnkState state, int plies, Map<Long, Boolean> known) {
+        long key = state.hash() * 31 + plies;
+        Boolean isKnown = known.get(key);
+        if (isKnown != null) return isKnown;
+        boolean isX = state.isXToMove();
+        boolean result = false;
+        if (plies >= 1 && countWins(state, isX, 1) > 0) {
+            result = true;
+        } else if (plies >= 3 && countWins(state, !isX, 2) < 2) {
+            boolean mustBlock = countWins(state, !isX, 1) == 1;
+            for (int pass = 0; pass < 2 && !result; pass++) {
+                for (int index = 0; index < state.game.fieldCount() && !result; index++) {
+                    if (state.getField(index) != Ai.Field.EMPTY) continue;
+                    if (mustBlock && !state.hasWonWithBit(state.game.toBit(index), !isX)) continue;
+                    state.setField(index, isX);
+                    boolean isFour = countWins(state, isX, 1) > 0;
+                    result = isFour == (pass == 0) && stillWins(state, plies - 1, isX, known);
+                    state.clearField(index);
+                }
+            }
+        }
+        known.put(key, result);
+        return result;
+    }
+
+    /**
+     * The defender to move: whether the attacker wins within {@code plies} moves against every reply.
+     */
+    private static boolean stillWins(MnkState state, int plies, boolean isAttackerX, Map<Long, Boolean> known) {
+        if (state.hasWon(isAttackerX)) return true;
+        if (countWins(state, !isAttackerX, 1) > 0) return false;
+        int threats = countWins(state, isAttackerX, 2);
+        if (threats >= 2) return true;
+        if (threats == 0 && plies < 4) return false;
+        for (int index = 0; index < state.game.fieldCount(); index++) {
+            if (state.getField(index) != Ai.Field.EMPTY) continue;
+            if (threats == 1 && !state.hasWonWithBit(state.game.toBit(index), isAttackerX)) continue;
+            state.setField(index, !isAttackerX);
+            boolean isWin = wins(state, plies - 1, known);
+            state.clearField(index);
+            if (!isWin) return false;
+        }
+        return true;
+    }
+
+    /**
+     * The number of empty fields that would win for {@code isX}, counting up to {@code max}.
+     */
+    private static int countWins(MnkState state, boolean isX, int max) {
+        int count = 0;
+        for (int index = 0; index < state.game.fieldCount() && count < max; index++) {
+            if (state.getField(index) == Ai.Field.EMPTY && state.hasWonWithBit(state.game.toBit(index), isX)) ++count;
+        }
+        return count;
+    }
+
+    /**
+     * The given rows at the top of an otherwise empty 15x15 board.
+     */
+    private static MnkState gomoku(String... rows) {
+        StringBuilder sb = new StringBuilder();
+        for (String row : rows) sb.append(row);
+        for (int i = rows.length * GOMOKU.width; i < GOMOKU.fieldCount(); i++) sb.append('.');
+        return GOMOKU.parse(sb.toString());
+    }
+}
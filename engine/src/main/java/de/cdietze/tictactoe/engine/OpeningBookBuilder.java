@@ -0,0 +1,119 @@
+package de.cdietze.tictactoe.engine;
+
+import de.cdietze.tictactoe.core.Ai;
+import de.cdietze.tictactoe.core.MnkAi;
+import de.cdietze.tictactoe.core.MnkGame;
+import de.cdietze.tictactoe.core.MnkState;
+import de.cdietze.tictactoe.core.OpeningBook;
+import de.cdietze.tictactoe.core.SearchLimits;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Builds an {@link OpeningBook} offline by self-play: every game searches each of its first positions with
+ * {@link MnkAi#search(MnkState, SearchLimits)} and stores the result, then plays the best move. To cover more than a
+ * single line, a game plays a random move next to the existing marks instead with a chance of {@link #EXPLORATION}.
+ * <p>
+ * The games run concurrently on a {@link ForkJoinPool}, each with its own {@link MnkAi} and state. A game only searches
+ * positions that have no result yet, but games that reach a position at the same time may each search it; the first
+ * result stored is kept. The map isn't locked during a search, since that would stall the other games for as long.
+ * Game {@code n} is seeded with {@code seed + n}, so the positions a build visits only depend on the seed and the
+ * search results.
+ */
+public final class OpeningBookBuilder {
+
+    /**
+     * The chance of a random move instead of the best one.
+     */
+    static final double EXPLORATION = 0.25;
+
+    public final MnkGame game;
+
+    private final ForkJoinPool pool;
+    private final SearchLimits limits;
+
+    /**
+     * @param limits the budget of the search of every position
+     */
+    public OpeningBookBuilder(MnkGame game, ForkJoinPool pool, SearchLimits limits) {
+        this.game = game;
+        this.pool = pool;
+        this.limits = limits;
+    }
+
+    /**
+     * Plays {@code games} games and stores the positions of their first {@code plies} moves.
+     */
+    public OpeningBook build(int games, int plies, long seed) {
+        checkArgument(games > 0, "games must be positive: %s", games);
+        checkArgument(plies > 0 && plies <= game.fieldCount(), "Invalid plies: %s", plies);
+        Map<Long, Ai.EvalResult> results = new ConcurrentHashMap<>();
+        List<Callable<Void>> tasks = new ArrayList<>(games);
+        for (int n = 0; n < games; n++) {
+            final long gameSeed = seed + n;
+            tasks.add(() -> {
+                play(results, plies, new Random(gameSeed));
+                return null;
+            });
+        }
+        for (Future<Void> future : pool.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                throw new IllegalStateException("Self-play game failed", e);
+            }
+        }
+        return OpeningBook.create(game, results);
+    }
+
+    private void play(Map<Long, Ai.EvalResult> results, int plies, Random random) {
+        MnkAi ai = new MnkAi(game);
+        MnkState state = game.newState();
+        for (int ply = 0; ply < plies && !isFinished(state); ply++) {
+            long hash = state.hash();
+            Ai.EvalResult result = results.get(hash);
+            if (result == null) {
+                result = ai.search(state, limits).result;
+                results.putIfAbsent(hash, result);
+            }
+            int move = random.nextDouble() < EXPLORATION ? randomMove(state, random) : result.bestMoveIndex;
+            state.setField(move, state.isXToMove());
+        }
+    }
+
+    /**
+     * A random empty field next to a mark, or any empty field on an empty board.
+     */
+    private int randomMove(MnkState state, Random random) {
+        int[] candidates = new int[game.fieldCount()];
+        int count = 0;
+        for (int index = 0; index < game.fieldCount(); index++) {
+            if (state.getField(index) != Ai.Field.EMPTY) continue;
+            if (state.markCount() == 0 || hasMarkedNeighbor(state, index)) candidates[count++] = index;
+        }
+        return candidates[random.nextInt(count)];
+    }
+
+    private boolean hasMarkedNeighbor(MnkState state, int index) {
+        int x = index % game.width, y = index / game.width;
+        for (int ny = Math.max(0, y - 1); ny <= Math.min(game.height - 1, y + 1); ny++) {
+            for (int nx = Math.max(0, x - 1); nx <= Math.min(game.width - 1, x + 1); nx++) {
+                if (state.getField(game.index(nx, ny)) != Ai.Field.EMPTY) return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isFinished(MnkState state) {
+        return state.hasXWon() || state.hasOWon() || state.isFull();
+    }
+}
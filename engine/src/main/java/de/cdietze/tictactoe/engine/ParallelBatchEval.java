@@ -0,0 +1,65 @@
+package de.cdietze.tictactoe.engine;
+
+import de.cdietze.tictactoe.core.Ai;
+import de.cdietze.tictactoe.core.BatchEval;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Splits a {@link BatchEval} batch into one contiguous chunk per thread of a {@link ForkJoinPool}.
+ * <p>
+ * Every chunk has its own {@link BatchEval}, so searches only skip duplicates within their chunk. Small batches are not
+ * worth the hand-off and run on the calling thread. The perfect-play table is filled in the constructor, so the
+ * threads only read it.
+ * <p>
+ * Instances reuse their evaluators and must not be used by several threads at once.
+ */
+public final class ParallelBatchEval {
+
+    /**
+     * Batches below this size are evaluated on the calling thread.
+     */
+    public static final int MIN_PARALLEL_SIZE = 1 << 14;
+
+    private final ForkJoinPool pool;
+    private final BatchEval[] evaluators;
+
+    public ParallelBatchEval(ForkJoinPool pool, Ai.Strategy strategy) {
+        this.pool = pool;
+        this.evaluators = new BatchEval[pool.getParallelism()];
+        for (int i = 0; i < evaluators.length; i++) evaluators[i] = new BatchEval(strategy);
+        Ai.eval(Ai.emptyState);
+    }
+
+    /**
+     * Like {@link BatchEval#eval(int[], int[], int[], int[])}.
+     */
+    public void eval(final int[] states, final int[] ratings, final int[] bestMoves, final int[] depths) {
+        int chunkCount = Math.min(evaluators.length, states.length / (MIN_PARALLEL_SIZE / 2));
+        if (chunkCount <= 1) {
+            evaluators[0].eval(states, ratings, bestMoves, depths);
+            return;
+        }
+        List<Callable<Void>> tasks = new ArrayList<>(chunkCount);
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            final BatchEval evaluator = evaluators[chunk];
+            final int from = (int) ((long) states.length * chunk / chunkCount);
+            final int to = (int) ((long) states.length * (chunk + 1) / chunkCount);
+            tasks.add(() -> {
+                evaluator.eval(states, from, to, ratings, bestMoves, depths);
+                return null;
+            });
+        }
+        for (Future<Void> future : pool.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                throw new IllegalStateException("Evaluation of a chunk failed", e);
+            }
+        }
+    }
+}
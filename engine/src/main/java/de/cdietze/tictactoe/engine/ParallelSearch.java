@@ -0,0 +1,136 @@
+package de.cdietze.tictactoe.engine;
+
+import de.cdietze.tictactoe.core.Ai;
+import de.cdietze.tictactoe.core.MnkAi;
+import de.cdietze.tictactoe.core.MnkGame;
+import de.cdietze.tictactoe.core.MnkState;
+import de.cdietze.tictactoe.core.SharedTranspositionTable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Splits the root moves of an {@link MnkAi} search across a {@link ForkJoinPool}.
+ * <p>
+ * Every root move is a task with its own {@link MnkAi} and copy of the state. The best score found so far is shared
+ * between the tasks and used as the lower bound of every move that starts later, just like the serial root does. A
+ * move is only taken if its score is exact, preferring the lower field index on equal scores, so the result is
+ * identical to {@link MnkAi#eval(MnkState, int)} no matter in which order the tasks finish.
+ * <p>
+ * With a {@link SharedTranspositionTable}, all tasks cache their results in that one table, so a task can use what
+ * another one found in a transposed position. The ratings of depth-limited searches can then differ like those of a
+ * serial search with a table do.
+ */
+public final class ParallelSearch {
+
+    /**
+     * Marks that no move has an exact score yet.
+     */
+    private static final long NO_BEST = Long.MIN_VALUE;
+
+    public final MnkGame game;
+
+    private final ForkJoinPool pool;
+    private final SharedTranspositionTable table;
+    private final AtomicLong nodeCount = new AtomicLong();
+
+    public ParallelSearch(MnkGame game, ForkJoinPool pool) {
+        this(game, pool, null);
+    }
+
+    /**
+     * @param table the table shared by all tasks, or {@code null} to search without one
+     */
+    public ParallelSearch(MnkGame game, ForkJoinPool pool, SharedTranspositionTable table) {
+        this.game = game;
+        this.pool = pool;
+        this.table = table;
+    }
+
+    /**
+     * Searches until the end of the game.
+     */
+    public Ai.EvalResult eval(MnkState state) {
+        return eval(state, game.fieldCount());
+    }
+
+    /**
+     * Searches exactly {@code depth} moves ahead. {@code state} is left unchanged.
+     */
+    public Ai.EvalResult eval(final MnkState state, final int depth) {
+        nodeCount.set(0);
+        MnkAi rootAi = new MnkAi(game);
+        if (isFinished(state) || depth <= 0) {
+            nodeCount.set(1);
+            return rootAi.eval(state, depth);
+        }
+        if (table != null) table.newSearch();
+        final AtomicLong best = new AtomicLong(NO_BEST);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int index = 0; index < game.fieldCount(); index++) {
+            if (state.getField(index) != Ai.Field.EMPTY) continue;
+            final int moveIndex = index;
+            final MnkState copy = state.copy();
+            tasks.add(() -> {
+                searchMove(copy, moveIndex, depth, best);
+                return null;
+            });
+        }
+        for (Future<Void> future : pool.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                throw new IllegalStateException("Search of a root move failed", e);
+            }
+        }
+        nodeCount.incrementAndGet();
+        long bestKey = best.get();
+        return rootAi.toEvalResult(state, score(bestKey), index(bestKey), depth);
+    }
+
+    /**
+     * The number of nodes visited by the last search, summed over all tasks.
+     */
+    public long nodeCount() {
+        return nodeCount.get();
+    }
+
+    private void searchMove(MnkState state, int moveIndex, int depth, AtomicLong best) {
+        MnkAi ai = new MnkAi(game, null, table);
+        long bestKey = best.get();
+        int lowerBound = MnkAi.NO_BOUND;
+        if (bestKey != NO_BEST) lowerBound = moveIndex < index(bestKey) ? score(bestKey) - 1 : score(bestKey);
+        int score = ai.scoreMove(state, moveIndex, depth, lowerBound);
+        nodeCount.addAndGet(ai.nodeCount());
+        if (score <= lowerBound) return;
+        long key = key(score, moveIndex);
+        long current;
+        do {
+            current = best.get();
+            if (current >= key) return;
+        } while (!best.compareAndSet(current, key));
+    }
+
+    /**
+     * Orders moves by score first and by lower field index second.
+     */
+    private static long key(int score, int moveIndex) {
+        return ((long) score << 32) | (Integer.MAX_VALUE - moveIndex);
+    }
+
+    private static int score(long key) {
+        return (int) (key >> 32);
+    }
+
+    private static int index(long key) {
+        return Integer.MAX_VALUE - (int) key;
+    }
+
+    private static boolean isFinished(MnkState state) {
+        return state.hasXWon() || state.hasOWon() || state.isFull();
+    }
+}
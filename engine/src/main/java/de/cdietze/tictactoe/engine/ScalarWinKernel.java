@@ -0,0 +1,24 @@
+package de.cdietze.tictactoe.engine;
+
+import de.cdietze.tictactoe.core.Ai;
+
+/**
+ * One state at a time through {@link Ai#hasXWon(int)}, {@link Ai#hasOWon(int)} and {@link Ai#isDraw(int)}. Works on
+ * every JVM.
+ */
+public final class ScalarWinKernel implements WinKernel {
+
+    @Override
+    public void classify(int[] states, int from, int to, int[] results) {
+        for (int n = from; n < to; n++) results[n] = classify(states[n]);
+    }
+
+    public static int classify(int state) {
+        return (Ai.hasXWon(state) ? X_WON : 0) | (Ai.hasOWon(state) ? O_WON : 0) | (Ai.isDraw(state) ? DRAW : 0);
+    }
+
+    @Override
+    public String toString() {
+        return "ScalarWinKernel";
+    }
+}
@@ -0,0 +1,192 @@
+package de.cdietze.tictactoe.engine;
+
+import de.cdietze.tictactoe.core.Ai;
+import de.cdietze.tictactoe.core.MnkGame;
+import de.cdietze.tictactoe.core.MnkState;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * The perfect-play value of every position of a small {@link MnkGame}, read from a file written by
+ * {@link TablebaseGenerator}.
+ * <p>
+ * A position is ranked as a base-3 number with one digit per field, 0 for empty, 1 for X and 2 for O, the lowest digit
+ * being field 0. The rank is a perfect hash: every position has its own slot, so looking a value up needs neither
+ * collision handling nor stored keys. Each slot holds one of {@link #LOSS}, {@link #DRAW} and {@link #WIN} for the
+ * player to move in 2 bits, four to a byte with the lowest rank in the lowest bits. Positions that can't come up in a
+ * game, like those where the player to move has won already, are {@link #UNREACHABLE}. A 4x4 board takes
+ * {@code 3^16 / 4} bytes, about 10 MB.
+ * <p>
+ * The file is memory-mapped, so opening it is instant and its pages are loaded on first use and shared between
+ * processes instead of filling the heap. Instances are immutable and thread-safe.
+ */
+public final class Tablebase {
+
+    /**
+     * The largest board, 3^16 ranks still fit an int and the file stays at about 10 MB.
+     */
+    public static final int MAX_FIELD_COUNT = 16;
+
+    public static final int UNREACHABLE = 0;
+    public static final int LOSS = 1;
+    public static final int DRAW = 2;
+    public static final int WIN = 3;
+
+    static final int MAGIC = 0x54544231;
+    static final int VERSION = 1;
+    /**
+     * Magic, version, width, height, k and the lowest solved layer, see {@link TablebaseGenerator}.
+     */
+    static final int HEADER_SIZE = 6 * 4;
+
+    public final MnkGame game;
+
+    private final ByteBuffer values;
+    private final int[] powers;
+
+    private Tablebase(MnkGame game, ByteBuffer values) {
+        this.game = game;
+        this.values = values;
+        this.powers = powersOfThree(game.fieldCount());
+    }
+
+    /**
+     * Maps a completely generated table.
+     *
+     * @throws IOException if {@code file} is not a table or its generation has not finished yet
+     */
+    public static Tablebase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Header header = Header.read(buffer, file);
+            if (header.solvedLayer != 0) {
+                throw new IOException("Generation of " + file + " stopped at layer " + header.solvedLayer
+                        + ", resume it with TablebaseGenerator");
+            }
+            return new Tablebase(header.game, buffer);
+        }
+    }
+
+    /**
+     * The value of {@code state} for the player to move, one of {@link #LOSS}, {@link #DRAW}, {@link #WIN} and
+     * {@link #UNREACHABLE}.
+     */
+    public int value(MnkState state) {
+        return value(rank(state));
+    }
+
+    /**
+     * The value of the position with the given rank, see {@link #value(MnkState)}.
+     */
+    public int value(int rank) {
+        return valueOf(values.get(HEADER_SIZE + (rank >>> 2)), rank);
+    }
+
+    /**
+     * The rank of {@code state}, its slot in the table.
+     */
+    public int rank(MnkState state) {
+        checkGame(state.game);
+        int rank = 0;
+        for (int i = 0; i < game.fieldCount(); i++) {
+            Ai.Field field = state.getField(i);
+            if (field != Ai.Field.EMPTY) rank += (field == Ai.Field.X ? 1 : 2) * powers[i];
+        }
+        return rank;
+    }
+
+    /**
+     * The perfect move of {@code state}, reported like {@link de.cdietze.tictactoe.core.MnkAi#eval(MnkState)}: a
+     * rating of 100 for a win of the player to move, -100 for a loss and 0 for a draw. The table does not know how
+     * many moves a result takes, so the depth is always the number of empty fields. Of several moves with the best
+     * value, the lowest field index is taken. {@code state} is left unchanged.
+     */
+    public Ai.EvalResult eval(MnkState state) {
+        int rank = rank(state);
+        int value = value(rank);
+        checkArgument(value != UNREACHABLE, "Unreachable position: %s", state);
+        int emptyCount = game.fieldCount() - state.markCount();
+        int rating = value == WIN ? 100 : value == LOSS ? -100 : 0;
+        if (state.hasXWon() || state.hasOWon() || emptyCount == 0) return Ai.EvalResult.create(rating, -1, 0);
+        int digit = state.isXToMove() ? 1 : 2;
+        int bestMove = -1;
+        // The best move leaves the opponent with the worst value
+        int bestChildValue = Integer.MAX_VALUE;
+        for (int i = 0; i < game.fieldCount(); i++) {
+            if (state.getField(i) != Ai.Field.EMPTY) continue;
+            int childValue = value(rank + digit * powers[i]);
+            if (childValue < bestChildValue) {
+                bestChildValue = childValue;
+                bestMove = i;
+                if (childValue == LOSS) break;
+            }
+        }
+        return Ai.EvalResult.create(rating, bestMove, emptyCount);
+    }
+
+    private void checkGame(MnkGame other) {
+        checkArgument(other.width == game.width && other.height == game.height && other.k == game.k,
+                "Table of %s can't look up %s", game, other);
+    }
+
+    static int valueOf(byte packed, int rank) {
+        return (packed >>> ((rank & 3) << 1)) & 3;
+    }
+
+    static int[] powersOfThree(int count) {
+        int[] powers = new int[count + 1];
+        powers[0] = 1;
+        for (int i = 1; i <= count; i++) powers[i] = powers[i - 1] * 3;
+        return powers;
+    }
+
+    /**
+     * The number of bytes of the values of a game with {@code fieldCount} fields.
+     */
+    static int valuesSize(int fieldCount) {
+        return (powersOfThree(fieldCount)[fieldCount] + 3) >>> 2;
+    }
+
+    /**
+     * The fixed-size start of a table file.
+     */
+    static final class Header {
+        final MnkGame game;
+        /**
+         * All positions with at least this many marks are solved, 0 once the table is complete.
+         */
+        final int solvedLayer;
+
+        Header(MnkGame game, int solvedLayer) {
+            this.game = game;
+            this.solvedLayer = solvedLayer;
+        }
+
+        static Header read(ByteBuffer buffer, Path file) throws IOException {
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a tablebase: " + file);
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("Unsupported tablebase version " + buffer.getInt(4) + ": " + file);
+            }
+            int width = buffer.getInt(8), height = buffer.getInt(12), k = buffer.getInt(16);
+            if (width <= 0 || height <= 0 || width * height > MAX_FIELD_COUNT || k <= 0 || k > Math.max(width, height)
+                    || buffer.limit() != HEADER_SIZE + valuesSize(width * height)) {
+                throw new IOException("Corrupt tablebase: " + file);
+            }
+            return new Header(new MnkGame(width, height, k), buffer.getInt(20));
+        }
+
+        void write(ByteBuffer buffer) {
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(game.width).putInt(game.height).putInt(game.k)
+                    .putInt(solvedLayer);
+        }
+    }
+}
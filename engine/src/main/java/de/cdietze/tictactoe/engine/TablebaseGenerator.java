@@ -0,0 +1,221 @@
+package de.cdietze.tictactoe.engine;
+
+import de.cdietze.tictactoe.core.MnkGame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Solves every position of a small {@link MnkGame} by retrograde analysis and writes a {@link Tablebase} file.
+ * <p>
+ * Marks are never removed, so the positions with {@code n} marks, layer {@code n}, only lead to positions of layer
+ * {@code n + 1}. The layers are solved from the full board backwards to the empty one, and every position of a layer
+ * is a single pass over its children, which are all solved already. Within a layer, the ranks are split into chunks
+ * that are solved concurrently on a {@link ForkJoinPool}. A chunk covers whole bytes of the table, so no two tasks
+ * write the same byte, and it only reads values of the previous layer, which no task writes anymore.
+ * <p>
+ * After each layer, the table is written to the file as a checkpoint, through a temporary file so an interrupted
+ * write can't corrupt it. Generating into a file that holds a checkpoint of the same game resumes after its last
+ * solved layer.
+ */
+public final class TablebaseGenerator {
+
+    /**
+     * Ranks per task, a multiple of the 4 values per byte.
+     */
+    static final int CHUNK_SIZE = 1 << 16;
+
+    public final MnkGame game;
+
+    private final ForkJoinPool pool;
+    private final int fieldCount;
+    private final int[] powers;
+    /**
+     * The fields of every line of {@code k} fields as a mask of field indices.
+     */
+    private final int[] lineMasks;
+
+    public TablebaseGenerator(MnkGame game, ForkJoinPool pool) {
+        checkArgument(game.fieldCount() <= Tablebase.MAX_FIELD_COUNT, "%s has more than %s fields", game,
+                Tablebase.MAX_FIELD_COUNT);
+        this.game = game;
+        this.pool = pool;
+        this.fieldCount = game.fieldCount();
+        this.powers = Tablebase.powersOfThree(fieldCount);
+        this.lineMasks = lineMasks(game);
+    }
+
+    /**
+     * Solves all positions into {@code file}, resuming from a checkpoint in it, and maps the result.
+     */
+    public Tablebase generate(Path file) throws IOException {
+        generate(file, 0);
+        return Tablebase.open(file);
+    }
+
+    /**
+     * Solves the layers down to {@code lastLayer} and leaves a checkpoint.
+     */
+    void generate(Path file, int lastLayer) throws IOException {
+        byte[] values = new byte[Tablebase.valuesSize(fieldCount)];
+        int solvedLayer = readCheckpoint(file, values);
+        for (int layer = solvedLayer - 1; layer >= lastLayer; layer--) {
+            solveLayer(values, layer);
+            writeCheckpoint(file, values, layer);
+        }
+    }
+
+    /**
+     * Reads the values of a checkpoint of this game in {@code file} and returns its lowest solved layer, or one past
+     * the full board if there is none.
+     */
+    private int readCheckpoint(Path file, byte[] values) throws IOException {
+        if (!Files.exists(file)) return fieldCount + 1;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the buffer is full
+            }
+            Tablebase.Header header = Tablebase.Header.read(buffer, file);
+            MnkGame other = header.game;
+            if (other.width != game.width || other.height != game.height || other.k != game.k) {
+                throw new IOException(file + " holds a table of " + other + ", not " + game);
+            }
+            buffer.position(Tablebase.HEADER_SIZE);
+            buffer.get(values);
+            return header.solvedLayer;
+        }
+    }
+
+    private void writeCheckpoint(Path file, byte[] values, int solvedLayer) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        ByteBuffer header = ByteBuffer.allocate(Tablebase.HEADER_SIZE);
+        new Tablebase.Header(game, solvedLayer).write(header);
+        header.flip();
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] buffers = {header, ByteBuffer.wrap(values)};
+            while (buffers[1].hasRemaining()) channel.write(buffers);
+            channel.force(false);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void solveLayer(final byte[] values, final int layer) {
+        int stateCount = powers[fieldCount];
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int start = 0; start < stateCount; start += CHUNK_SIZE) {
+            final int from = start;
+            final int to = Math.min(start + CHUNK_SIZE, stateCount);
+            tasks.add(() -> {
+                solveChunk(values, layer, from, to);
+                return null;
+            });
+        }
+        for (Future<Void> future : pool.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (Exception e) {
+                throw new IllegalStateException("Solving layer " + layer + " failed", e);
+            }
+        }
+    }
+
+    /**
+     * Solves the positions of {@code layer} with ranks from {@code from} up to {@code to - 1}. The ranks are walked
+     * with a base-3 counter that keeps the marks of both players as masks of field indices.
+     */
+    private void solveChunk(byte[] values, int layer, int from, int to) {
+        int xCount = (layer + 1) / 2;
+        int oCount = layer / 2;
+        boolean isXToMove = xCount == oCount;
+        // One spare digit, so counting past the last rank needs no check
+        int[] digits = new int[fieldCount + 1];
+        int xMask = 0, oMask = 0;
+        for (int i = 0, rank = from; i < fieldCount; i++, rank /= 3) {
+            digits[i] = rank % 3;
+            if (digits[i] == 1) xMask |= 1 << i;
+            else if (digits[i] == 2) oMask |= 1 << i;
+        }
+        for (int rank = from; rank < to; rank++) {
+            if (Integer.bitCount(xMask) == xCount && Integer.bitCount(oMask) == oCount) {
+                int value = solve(values, rank, xMask, oMask, isXToMove, layer);
+                int shift = (rank & 3) << 1;
+                int index = rank >>> 2;
+                values[index] = (byte) ((values[index] & ~(3 << shift)) | (value << shift));
+            }
+            for (int i = 0; ; i++) {
+                int bit = 1 << i;
+                if (digits[i] == 0) {
+                    digits[i] = 1;
+                    xMask |= bit;
+                    break;
+                } else if (digits[i] == 1) {
+                    digits[i] = 2;
+                    xMask &= ~bit;
+                    oMask |= bit;
+                    break;
+                }
+                digits[i] = 0;
+                oMask &= ~bit;
+            }
+        }
+    }
+
+    private int solve(byte[] values, int rank, int xMask, int oMask, boolean isXToMove, int layer) {
+        int moverMask = isXToMove ? xMask : oMask;
+        int opponentMask = isXToMove ? oMask : xMask;
+        if (hasLine(opponentMask)) return Tablebase.LOSS;
+        // The game would have ended before the mover's last move
+        if (hasLine(moverMask)) return Tablebase.UNREACHABLE;
+        if (layer == fieldCount) return Tablebase.DRAW;
+        int digit = isXToMove ? 1 : 2;
+        int best = Tablebase.LOSS;
+        int emptyMask = ~(xMask | oMask) & ((1 << fieldCount) - 1);
+        while (emptyMask != 0) {
+            int field = Integer.numberOfTrailingZeros(emptyMask);
+            emptyMask &= emptyMask - 1;
+            int childRank = rank + digit * powers[field];
+            int childValue = Tablebase.valueOf(values[childRank >>> 2], childRank);
+            if (childValue == Tablebase.LOSS) return Tablebase.WIN;
+            if (childValue == Tablebase.DRAW) best = Tablebase.DRAW;
+        }
+        return best;
+    }
+
+    private boolean hasLine(int mask) {
+        for (int lineMask : lineMasks) {
+            if ((mask & lineMask) == lineMask) return true;
+        }
+        return false;
+    }
+
+    private static int[] lineMasks(MnkGame game) {
+        int[][] steps = {{1, 0}, {0, 1}, {1, 1}, {-1, 1}};
+        List<Integer> masks = new ArrayList<>();
+        for (int[] step : steps) {
+            for (int y = 0; y < game.height; y++) {
+                for (int x = 0; x < game.width; x++) {
+                    int endX = x + (game.k - 1) * step[0], endY = y + (game.k - 1) * step[1];
+                    if (endX < 0 || endX >= game.width || endY >= game.height) continue;
+                    int mask = 0;
+                    for (int i = 0; i < game.k; i++) mask |= 1 << game.index(x + i * step[0], y + i * step[1]);
+                    masks.add(mask);
+                }
+            }
+        }
+        return masks.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,29 @@
+package de.cdietze.tictactoe.engine;
+
+import de.cdietze.tictactoe.core.Ai;
+
+/**
+ * Checks many states in the {@link Ai} encoding for wins and full boards at once. Get an instance from
+ * {@link WinKernels}.
+ */
+public interface WinKernel {
+
+    /**
+     * {@link Ai#hasXWon(int)}
+     */
+    int X_WON = 1;
+    /**
+     * {@link Ai#hasOWon(int)}
+     */
+    int O_WON = 2;
+    /**
+     * {@link Ai#isDraw(int)}, which only checks that the board is full.
+     */
+    int DRAW = 4;
+
+    /**
+     * Writes the flags of {@code states[from]} up to {@code states[to - 1]} into the same positions of
+     * {@code results}: a combination of {@link #X_WON}, {@link #O_WON} and {@link #DRAW}.
+     */
+    void classify(int[] states, int from, int to, int[] results);
+}
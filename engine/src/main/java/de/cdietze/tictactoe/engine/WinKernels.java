@@ -0,0 +1,38 @@
+package de.cdietze.tictactoe.engine;
+
+/**
+ * Picks a {@link WinKernel}. The vectorized kernel lives in the {@code simd} module, which needs Java 17 and the JVM
+ * flag {@code --add-modules jdk.incubator.vector}. It is loaded by name, so this module works without it.
+ */
+public final class WinKernels {
+
+    private static final String VECTOR_KERNEL_CLASS = "de.cdietze.tictactoe.simd.VectorWinKernel";
+
+    private WinKernels() {
+    }
+
+    /**
+     * The vectorized kernel if it is available, otherwise a {@link ScalarWinKernel}.
+     */
+    public static WinKernel best() {
+        try {
+            return vector();
+        } catch (UnsupportedOperationException e) {
+            return new ScalarWinKernel();
+        }
+    }
+
+    /**
+     * The vectorized kernel.
+     *
+     * @throws UnsupportedOperationException if the {@code simd} module is not on the class path or the vector API is
+     *                                       not enabled
+     */
+    public static WinKernel vector() {
+        try {
+            return (WinKernel) Class.forName(VECTOR_KERNEL_CLASS).getConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new UnsupportedOperationException("Vector kernel is not available", e);
+        }
+    }
+}
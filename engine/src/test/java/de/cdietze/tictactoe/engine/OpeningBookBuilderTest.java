@@ -0,0 +1,47 @@
+package de.cdietze.tictactoe.engine;
+
+import de.cdietze.tictactoe.core.Ai;
+import de.cdietze.tictactoe.core.MnkAi;
+import de.cdietze.tictactoe.core.MnkGame;
+import de.cdietze.tictactoe.core.MnkState;
+import de.cdietze.tictactoe.core.OpeningBook;
+import de.cdietze.tictactoe.core.SearchLimits;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OpeningBookBuilderTest {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+    private static final MnkGame CONNECT_FOUR = new MnkGame(7, 6, 4);
+    private static final SearchLimits LIMITS = SearchLimits.depth(3);
+
+    @AfterClass
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void shouldStoreSearchResultsOfTheOpening() {
+        OpeningBook book = new OpeningBookBuilder(CONNECT_FOUR, pool, LIMITS).build(20, 4, 1);
+        assertThat(book.size()).isGreaterThan(4);
+        MnkState state = CONNECT_FOUR.newState();
+        Ai.EvalResult expected = new MnkAi(CONNECT_FOUR).search(state, LIMITS).result;
+        Ai.EvalResult result = book.lookup(state);
+        assertThat(result.bestMoveIndex).isEqualTo(expected.bestMoveIndex);
+        assertThat(result.rating).isEqualTo(expected.rating);
+        assertThat(result.depth).isEqualTo(expected.depth);
+        // Following the book leads to more book positions
+        state.setField(result.bestMoveIndex, true);
+        assertThat(book.lookup(state)).isNotNull();
+    }
+
+    @Test
+    public void shouldBeRepeatable() {
+        OpeningBookBuilder builder = new OpeningBookBuilder(CONNECT_FOUR, pool, LIMITS);
+        assertThat(builder.build(10, 3, 7).toBytes()).isEqualTo(builder.build(10, 3, 7).toBytes());
+    }
+}
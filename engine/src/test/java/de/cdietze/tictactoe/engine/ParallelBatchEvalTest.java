@@ -0,0 +1,64 @@
+package de.cdietze.tictactoe.engine;
+
+import de.cdietze.tictactoe.core.Ai;
+import de.cdietze.tictactoe.core.BatchEval;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParallelBatchEvalTest {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void shouldMatchSerialBatch() {
+        int[] states = randomStates(100000, 1);
+        int n = states.length;
+        int[] ratings = new int[n], bestMoves = new int[n], depths = new int[n];
+        int[] expectedRatings = new int[n], expectedBestMoves = new int[n], expectedDepths = new int[n];
+        new ParallelBatchEval(pool, Ai.Strategy.TABLE).eval(states, ratings, bestMoves, depths);
+        new BatchEval().eval(states, expectedRatings, expectedBestMoves, expectedDepths);
+        assertThat(ratings).isEqualTo(expectedRatings);
+        assertThat(bestMoves).isEqualTo(expectedBestMoves);
+        assertThat(depths).isEqualTo(expectedDepths);
+        // The searches may pick other equally good moves, but agree on ratings and depths
+        new ParallelBatchEval(pool, Ai.Strategy.ALPHA_BETA).eval(states, ratings, bestMoves, depths);
+        assertThat(ratings).isEqualTo(expectedRatings);
+        assertThat(depths).isEqualTo(expectedDepths);
+    }
+
+    @Test
+    public void shouldHandleSmallBatches() {
+        int[] states = randomStates(10, 2);
+        int[] ratings = new int[10], bestMoves = new int[10], depths = new int[10];
+        new ParallelBatchEval(pool, Ai.Strategy.ALPHA_BETA).eval(states, ratings, bestMoves, depths);
+        for (int i = 0; i < states.length; i++) assertThat(ratings[i]).isEqualTo(Ai.eval(states[i]).rating);
+    }
+
+    private static int[] randomStates(int count, long seed) {
+        Random random = new Random(seed);
+        int[] states = new int[count];
+        for (int n = 0; n < count; n++) {
+            int state = Ai.emptyState;
+            int moves = random.nextInt(10);
+            for (int m = 0; m < moves && !Ai.hasXWon(state) && !Ai.hasOWon(state) && !Ai.isDraw(state); m++) {
+                int index;
+                do {
+                    index = random.nextInt(9);
+                } while (Ai.getField(state, index) != Ai.Field.EMPTY);
+                state = Ai.setField(state, index, Ai.isXToMove(state));
+            }
+            states[n] = state;
+        }
+        return states;
+    }
+}
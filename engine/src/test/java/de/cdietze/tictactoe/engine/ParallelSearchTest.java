@@ -0,0 +1,88 @@
+package de.cdietze.tictactoe.engine;
+
+import de.cdietze.tictactoe.core.Ai;
+import de.cdietze.tictactoe.core.MnkAi;
+import de.cdietze.tictactoe.core.MnkGame;
+import de.cdietze.tictactoe.core.MnkState;
+import de.cdietze.tictactoe.core.SharedTranspositionTable;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ParallelSearchTest {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterClass
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void shouldMatchSerialSearchOnTicTacToe() {
+        ParallelSearch parallel = new ParallelSearch(MnkGame.TIC_TAC_TOE, pool);
+        Random random = new Random(1);
+        for (int n = 0; n < 200; n++) {
+            MnkState state = randomState(MnkGame.TIC_TAC_TOE, random, random.nextInt(9));
+            assertSameResult(new MnkAi(MnkGame.TIC_TAC_TOE).eval(state), parallel.eval(state), state);
+        }
+    }
+
+    @Test
+    public void shouldMatchSerialSearchOnLargerBoards() {
+        Random random = new Random(2);
+        MnkGame[] games = {new MnkGame(4, 4, 3), new MnkGame(4, 4, 4), new MnkGame(7, 6, 4)};
+        for (MnkGame game : games) {
+            ParallelSearch parallel = new ParallelSearch(game, pool);
+            for (int n = 0; n < 10; n++) {
+                MnkState state = randomState(game, random, random.nextInt(6));
+                assertSameResult(new MnkAi(game).eval(state, 3), parallel.eval(state, 3), state);
+            }
+        }
+    }
+
+    @Test
+    public void shouldMatchSerialSearchWithSharedTable() {
+        Random random = new Random(3);
+        MnkGame[] games = {MnkGame.TIC_TAC_TOE, new MnkGame(4, 4, 3)};
+        for (MnkGame game : games) {
+            SharedTranspositionTable table =
+                    new SharedTranspositionTable(16, SharedTranspositionTable.Replacement.TWO_TIER, true);
+            ParallelSearch parallel = new ParallelSearch(game, pool, table);
+            for (int n = 0; n < 20; n++) {
+                MnkState state = randomState(game, random, 2 + random.nextInt(6));
+                assertSameResult(new MnkAi(game).eval(state), parallel.eval(state), state);
+            }
+            assertThat(table.hitCount()).isGreaterThan(0);
+        }
+    }
+
+    @Test
+    public void shouldCountNodes() {
+        ParallelSearch parallel = new ParallelSearch(MnkGame.TIC_TAC_TOE, pool);
+        parallel.eval(MnkGame.TIC_TAC_TOE.newState());
+        assertThat(parallel.nodeCount()).isGreaterThan(9);
+    }
+
+    private static void assertSameResult(Ai.EvalResult expected, Ai.EvalResult actual, MnkState state) {
+        assertThat(actual.rating).as(state.toString()).isEqualTo(expected.rating);
+        assertThat(actual.bestMoveIndex).as(state.toString()).isEqualTo(expected.bestMoveIndex);
+        assertThat(actual.depth).as(state.toString()).isEqualTo(expected.depth);
+    }
+
+    private static MnkState randomState(MnkGame game, Random random, int moves) {
+        MnkState state = game.newState();
+        for (int m = 0; m < moves && !state.hasXWon() && !state.hasOWon() && !state.isFull(); m++) {
+            int index;
+            do {
+                index = random.nextInt(game.fieldCount());
+            } while (state.getField(index) != Ai.Field.EMPTY);
+            state.setField(index, state.isXToMove());
+        }
+        return state;
+    }
+}
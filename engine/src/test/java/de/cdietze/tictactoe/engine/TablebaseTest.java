@@ -0,0 +1,111 @@
+package de.cdietze.tictactoe.engine;
+
+import de.cdietze.tictactoe.core.Ai;
+import de.cdietze.tictactoe.core.MnkAi;
+import de.cdietze.tictactoe.core.MnkGame;
+import de.cdietze.tictactoe.core.MnkState;
+import org.junit.AfterClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TablebaseTest {
+
+    private static final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @AfterClass
+    public static void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void shouldMatchSearchOnEveryReachablePosition() throws IOException {
+        MnkGame[] games = {MnkGame.TIC_TAC_TOE, new MnkGame(4, 3, 3)};
+        for (MnkGame game : games) {
+            Tablebase tablebase = new TablebaseGenerator(game, pool).generate(newPath(game.toString()));
+            assertMatchesSearch(tablebase, new MnkAi(game), game.newState(), new HashSet<>());
+        }
+    }
+
+    @Test
+    public void shouldResumeFromCheckpoint() throws IOException {
+        MnkGame game = new MnkGame(4, 3, 3);
+        Path complete = newPath("complete");
+        new TablebaseGenerator(game, pool).generate(complete);
+        Path resumed = newPath("resumed");
+        new TablebaseGenerator(game, pool).generate(resumed, 7);
+        try {
+            Tablebase.open(resumed);
+            throw new AssertionError("Opened an incomplete table");
+        } catch (IOException expected) {
+            // Layers 0 to 6 are missing
+        }
+        new TablebaseGenerator(game, pool).generate(resumed);
+        assertThat(Files.readAllBytes(resumed)).isEqualTo(Files.readAllBytes(complete));
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldNotResumeTableOfAnotherGame() throws IOException {
+        Path file = newPath("tic-tac-toe");
+        new TablebaseGenerator(MnkGame.TIC_TAC_TOE, pool).generate(file, 5);
+        new TablebaseGenerator(new MnkGame(3, 3, 2), pool).generate(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void shouldRejectOtherFiles() throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, new byte[]{1, 2, 3});
+        Tablebase.open(file);
+    }
+
+    @Test
+    public void shouldSolveFourByFour() throws IOException {
+        Tablebase tablebase = new TablebaseGenerator(new MnkGame(4, 4, 4), pool).generate(newPath("4x4"));
+        MnkState state = tablebase.game.newState();
+        assertThat(tablebase.value(state)).isEqualTo(Tablebase.DRAW);
+        // X threatens to complete the top row and the main diagonal at once
+        state = tablebase.game.parse("XXX.|OX..|O.X.|OO..");
+        assertThat(state.isXToMove()).isFalse();
+        assertThat(tablebase.value(state)).isEqualTo(Tablebase.LOSS);
+        assertThat(tablebase.value(tablebase.game.parse("XXXX|OOO.|....|...."))).isEqualTo(Tablebase.LOSS);
+        assertThat(tablebase.value(tablebase.game.parse("XXXX|OOO.|O...|...."))).isEqualTo(Tablebase.UNREACHABLE);
+    }
+
+    private Path newPath(String name) {
+        return folder.getRoot().toPath().resolve(name + ".tablebase");
+    }
+
+    private static void assertMatchesSearch(Tablebase tablebase, MnkAi ai, MnkState state, Set<Integer> seen) {
+        if (!seen.add(tablebase.rank(state))) return;
+        Ai.EvalResult expected = ai.eval(state);
+        Ai.EvalResult actual = tablebase.eval(state);
+        assertThat(actual.rating).as(state.toString()).isEqualTo(expected.rating);
+        boolean isFinished = state.hasXWon() || state.hasOWon() || state.isFull();
+        if (isFinished) {
+            assertThat(actual.bestMoveIndex).as(state.toString()).isEqualTo(-1);
+            return;
+        }
+        // The best move keeps the rating, though it may not be the fastest win like the searched one
+        state.setField(actual.bestMoveIndex, state.isXToMove());
+        assertThat(-tablebase.eval(state).rating).as(state.toString()).isEqualTo(expected.rating);
+        state.clearField(actual.bestMoveIndex);
+        for (int i = 0; i < state.game.fieldCount(); i++) {
+            if (state.getField(i) != Ai.Field.EMPTY) continue;
+            state.setField(i, state.isXToMove());
+            assertMatchesSearch(tablebase, ai, state, seen);
+            state.clearField(i);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package de.cdietze.tictactoe.engine;
+
+import de.cdietze.tictactoe.core.Ai;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WinKernelsTest {
+
+    @Test
+    public void shouldFallBackToScalarKernel() {
+        // The simd module is not a dependency of this module
+        assertThat(WinKernels.best()).isInstanceOf(ScalarWinKernel.class);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldReportMissingVectorKernel() {
+        WinKernels.vector();
+    }
+
+    @Test
+    public void shouldClassifyStates() {
+        int xWon = Ai.stringToState("XXX|OO.|...");
+        int oWon = Ai.stringToState("XX.|OOO|X..");
+        int draw = Ai.stringToState("XOX|XOO|OXX");
+        int fullAndWon = Ai.stringToState("XOX|OXO|OXX");
+        int[] states = {Ai.emptyState, xWon, oWon, draw, fullAndWon};
+        int[] results = new int[states.length];
+        new ScalarWinKernel().classify(states, 0, states.length, results);
+        assertThat(results).containsExactly(0, WinKernel.X_WON, WinKernel.O_WON, WinKernel.DRAW,
+                WinKernel.X_WON | WinKernel.DRAW);
+    }
+}
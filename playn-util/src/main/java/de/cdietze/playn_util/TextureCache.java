@@ -0,0 +1,124 @@
+package de.cdietze.playn_util;
+
+import playn.core.Canvas;
+import playn.core.Graphics;
+import playn.core.TextFormat;
+import playn.core.TextLayout;
+import playn.core.Texture;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Generated textures, drawn and uploaded once and then shared by every screen that asks for them.
+ * <p>
+ * Shapes are drawn at the size they appear on screen in device pixels, so they stay sharp on high density displays and
+ * don't waste memory on small boards. Sizes are rounded up to whole steps of {@link #PIXEL_STEP} pixels, so small
+ * changes of the layout don't redraw anything. Shape textures are keyed by their shape, the device scale and that
+ * rounded size. They are managed textures and counted by PlayN's own references: every
+ * {@link #get(String, float, float, Painter)} takes one that its user gives back with {@link Texture#release()}. The
+ * cache holds a reference of its own to the {@link #MAX_SHAPES} most recently used shapes, so a screen that is
+ * replaced by a new one of the same size hands its textures over instead of closing them. An evicted shape is closed
+ * as soon as its last user releases it.
+ * <p>
+ * Text textures only depend on the text, its format and its color, so there are few of them and they are kept until
+ * {@link #clear()}.
+ */
+public class TextureCache {
+
+    /**
+     * Draws a shape to fill a canvas.
+     */
+    public interface Painter {
+        void paint(Canvas canvas);
+    }
+
+    public static final int PIXEL_STEP = 16;
+    /**
+     * The number of shape textures the cache keeps alive after their users released them.
+     */
+    public static final int MAX_SHAPES = 8;
+
+    private final Graphics graphics;
+    /**
+     * In access order, so the eldest entry is the least recently used one.
+     */
+    private final Map<String, Texture> shapes = new LinkedHashMap<String, Texture>(16, .75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Texture> eldest) {
+            if (size() <= MAX_SHAPES) return false;
+            eldest.getValue().release();
+            return true;
+        }
+    };
+    private final Map<String, Texture> texts = new HashMap<>();
+
+    public TextureCache(Graphics graphics) {
+        this.graphics = graphics;
+    }
+
+    /**
+     * Returns the texture of {@code shape} for a size of {@code pixelWidth} x {@code pixelHeight} on screen, in device
+     * pixels, and takes a reference to it that the caller has to {@link Texture#release() release}. On a miss,
+     * {@code painter} draws it onto a canvas of at least that size.
+     *
+     * @param shape names what {@code painter} draws, textures with the same shape must look the same
+     */
+    public Texture get(String shape, float pixelWidth, float pixelHeight, Painter painter) {
+        checkArgument(pixelWidth > 0 && pixelHeight > 0, "Invalid size: %sx%s", pixelWidth, pixelHeight);
+        float factor = graphics.scale().factor;
+        int width = roundUp(pixelWidth), height = roundUp(pixelHeight);
+        String key = shape + '@' + factor + ':' + width + 'x' + height;
+        Texture texture = shapes.get(key);
+        if (texture == null) {
+            Canvas canvas = graphics.createCanvas(width / factor, height / factor);
+            painter.paint(canvas);
+            texture = canvas.toTexture();
+            // The reference of the cache, released on eviction
+            texture.reference();
+            shapes.put(key, texture);
+        }
+        texture.reference();
+        return texture;
+    }
+
+    /**
+     * Returns the texture of {@code text} laid out in {@code format}. The text is only laid out on a miss.
+     */
+    public Texture text(String text, TextFormat format, int color) {
+        String key = text + '@' + format + ':' + Integer.toHexString(color);
+        Texture texture = texts.get(key);
+        if (texture == null) {
+            TextLayout layout = graphics.layoutText(text, format);
+            Canvas canvas = graphics.createCanvas(layout.size);
+            canvas.setFillColor(color).fillText(layout, 0, 0);
+            texture = canvas.toTexture();
+            texts.put(key, texture);
+        }
+        return texture;
+    }
+
+    /**
+     * The number of cached textures.
+     */
+    public int size() {
+        return shapes.size() + texts.size();
+    }
+
+    /**
+     * Drops all textures. Shapes that are still in use stay open until their users release them.
+     */
+    public void clear() {
+        for (Texture texture : shapes.values()) texture.release();
+        for (Texture texture : texts.values()) texture.close();
+        shapes.clear();
+        texts.clear();
+    }
+
+    private static int roundUp(float pixels) {
+        return ((int) Math.ceil(pixels) + PIXEL_STEP - 1) / PIXEL_STEP * PIXEL_STEP;
+    }
+}
@@ -0,0 +1,49 @@
+package de.cdietze.tictactoe.simd;
+
+import de.cdietze.tictactoe.core.Ai;
+import de.cdietze.tictactoe.engine.ScalarWinKernel;
+import de.cdietze.tictactoe.engine.WinKernel;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Checks as many states at once as the CPU has int lanes. Each lane splits its state into the X and O masks and
+ * compares them against the eight winning lines; the per-lane results are combined with vector masks instead of
+ * branches. A remainder shorter than a vector is handled by {@link ScalarWinKernel}.
+ */
+public final class VectorWinKernel implements WinKernel {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final int NINE_BITS = (1 << 9) - 1;
+    private static final int[] LINE_MASKS = Ai.lineMasks();
+
+    @Override
+    public void classify(int[] states, int from, int to, int[] results) {
+        IntVector zero = IntVector.zero(SPECIES);
+        int n = from;
+        for (int bound = from + SPECIES.loopBound(to - from); n < bound; n += SPECIES.length()) {
+            IntVector state = IntVector.fromArray(SPECIES, states, n);
+            IntVector x = state.and(NINE_BITS);
+            IntVector o = state.lanewise(VectorOperators.LSHR, 9).and(NINE_BITS);
+            VectorMask<Integer> xWon = SPECIES.maskAll(false);
+            VectorMask<Integer> oWon = SPECIES.maskAll(false);
+            for (int line : LINE_MASKS) {
+                xWon = xWon.or(x.and(line).eq(line));
+                oWon = oWon.or(o.and(line).eq(line));
+            }
+            VectorMask<Integer> full = x.or(o).eq(NINE_BITS);
+            zero.lanewise(VectorOperators.OR, X_WON, xWon)
+                    .lanewise(VectorOperators.OR, O_WON, oWon)
+                    .lanewise(VectorOperators.OR, DRAW, full)
+                    .intoArray(results, n);
+        }
+        for (; n < to; n++) results[n] = ScalarWinKernel.classify(states[n]);
+    }
+
+    @Override
+    public String toString() {
+        return "VectorWinKernel{species=" + SPECIES + "}";
+    }
+}
@@ -0,0 +1,27 @@
+package de.cdietze.tictactoe.simd;
+
+import de.cdietze.tictactoe.engine.ScalarWinKernel;
+import de.cdietze.tictactoe.engine.WinKernels;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VectorWinKernelTest {
+
+    @Test
+    public void shouldMatchScalarKernelForAllStates() {
+        // Every 18-bit state, including unreachable ones, and an odd range to exercise the scalar remainder
+        int[] states = new int[(1 << 18) + 3];
+        for (int n = 0; n < states.length; n++) states[n] = n & ((1 << 18) - 1);
+        int[] expected = new int[states.length];
+        int[] actual = new int[states.length];
+        new ScalarWinKernel().classify(states, 1, states.length, expected);
+        new VectorWinKernel().classify(states, 1, states.length, actual);
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void shouldBePickedWhenAvailable() {
+        assertThat(WinKernels.best()).isInstanceOf(VectorWinKernel.class);
+    }
+}
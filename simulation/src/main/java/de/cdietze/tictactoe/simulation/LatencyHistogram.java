@@ -0,0 +1,60 @@
+package de.cdietze.tictactoe.simulation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations in nanoseconds for percentiles.
+ * <p>
+ * Every power of two is split into {@value #SUB_BUCKETS} linear buckets, so a percentile is reported as the upper end
+ * of its bucket and is at most 1/{@value #SUB_BUCKETS} too high. Recording is a single atomic increment.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(64 * SUB_BUCKETS);
+
+    public void record(long nanos) {
+        counts.incrementAndGet(bucket(Math.max(nanos, 0)));
+    }
+
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) count += counts.get(i);
+        return count;
+    }
+
+    /**
+     * The duration that {@code percentile} percent of the recorded durations do not exceed, 0 if nothing was
+     * recorded.
+     */
+    public long percentile(double percentile) {
+        long total = count();
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(percentile / 100 * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= Math.max(rank, 1)) return upperBound(i);
+        }
+        return upperBound(counts.length() - 1);
+    }
+
+    /**
+     * Values below {@link #SUB_BUCKETS} get a bucket each, larger ones share a bucket with the values that have the
+     * same highest {@link #SUB_BUCKET_BITS} + 1 bits.
+     */
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long base = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return base + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,38 @@
+package de.cdietze.tictactoe.simulation;
+
+import de.cdietze.tictactoe.core.Ai;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks the next move of a running game.
+ */
+public enum Player {
+    /**
+     * Perfect play through {@link Ai#eval(int)}.
+     */
+    AI {
+        @Override
+        public int move(int state) {
+            return Ai.eval(state).bestMoveIndex;
+        }
+    },
+    /**
+     * A uniformly random empty field.
+     */
+    RANDOM {
+        @Override
+        public int move(int state) {
+            int occupiedFieldMask = (state >> 9) | state;
+            int emptyCount = 9 - Integer.bitCount(occupiedFieldMask & 0x1FF);
+            int n = ThreadLocalRandom.current().nextInt(emptyCount);
+            for (int i = 0; i < 9; i++) {
+                if ((occupiedFieldMask & (1 << i)) != 0) continue;
+                if (n-- == 0) return i;
+            }
+            throw new AssertionError("No empty field in " + Ai.stateToString(state));
+        }
+    };
+
+    public abstract int move(int state);
+}
@@ -0,0 +1,107 @@
+package de.cdietze.tictactoe.simulation;
+
+import de.cdietze.tictactoe.core.Ai;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command line entry point, see {@link #USAGE}. Exits with status 1 if a perfect player lost a game.
+ */
+public final class SelfPlay {
+
+    static final String USAGE = "Usage: java -jar simulation.jar [--games N] [--x AI|RANDOM] [--o AI|RANDOM]"
+            + " [--threads N|virtual]\n"
+            + "Plays N games (default 1000000), X and O default to AI. --threads defaults to one thread per core,\n"
+            + "'virtual' runs every batch of games on its own virtual thread (Java 21+, a thread per core before).";
+
+    private SelfPlay() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        long games = 1000000;
+        Player x = Player.AI, o = Player.AI;
+        String threads = String.valueOf(Runtime.getRuntime().availableProcessors());
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String value = i + 1 < args.length ? args[i + 1] : null;
+                switch (args[i]) {
+                    case "--games":
+                        games = Long.parseLong(value);
+                        break;
+                    case "--x":
+                        x = Player.valueOf(value);
+                        break;
+                    case "--o":
+                        o = Player.valueOf(value);
+                        break;
+                    case "--threads":
+                        if (value == null || !value.equals("virtual") && Integer.parseInt(value) <= 0) {
+                            throw new IllegalArgumentException("Invalid thread count: " + value);
+                        }
+                        threads = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option: " + args[i]);
+                }
+                ++i;
+            }
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        ExecutorService executor = createExecutor(threads);
+        // Fill the perfect-play table up front, so it does not show up in the latencies of the first games
+        Ai.eval(Ai.emptyState);
+        long startNanos = System.nanoTime();
+        Statistics statistics = new Simulation(x, o).run(games, executor);
+        long elapsedNanos = System.nanoTime() - startNanos;
+        executor.shutdown();
+
+        System.out.println(report(x, o, threads, statistics, elapsedNanos));
+        boolean perfectPlayerLost = (x == Player.AI && statistics.oWins.sum() > 0)
+                || (o == Player.AI && statistics.xWins.sum() > 0);
+        if (perfectPlayerLost) {
+            System.err.println("The AI lost a game");
+            System.exit(1);
+        }
+    }
+
+    static String report(Player x, Player o, String threads, Statistics statistics, long elapsedNanos) {
+        long games = statistics.games();
+        double seconds = elapsedNanos / 1e9;
+        LatencyHistogram latencies = statistics.gameNanos;
+        return String.format(Locale.ROOT, "%s vs %s, threads: %s, %d games in %.2fs, %.0f games/s, %.0f moves/s%n"
+                        + "X won %d (%.2f%%), O won %d (%.2f%%), draws %d (%.2f%%)%n"
+                        + "game latency p50 %.1fus, p90 %.1fus, p99 %.1fus, p99.9 %.1fus, max %.1fus",
+                x, o, threads, games, seconds, games / seconds, statistics.moves.sum() / seconds,
+                statistics.xWins.sum(), percent(statistics.xWins.sum(), games),
+                statistics.oWins.sum(), percent(statistics.oWins.sum(), games),
+                statistics.draws.sum(), percent(statistics.draws.sum(), games),
+                latencies.percentile(50) / 1e3, latencies.percentile(90) / 1e3, latencies.percentile(99) / 1e3,
+                latencies.percentile(99.9) / 1e3, latencies.percentile(100) / 1e3);
+    }
+
+    private static double percent(long count, long total) {
+        return total == 0 ? 0 : 100.0 * count / total;
+    }
+
+    /**
+     * A fixed pool of {@code threads} threads, or a virtual thread per task for {@code "virtual"}. Virtual threads
+     * are looked up by reflection, so this module still builds and runs on Java 8; before Java 21 they fall back to
+     * a thread per core.
+     */
+    static ExecutorService createExecutor(String threads) {
+        if (!"virtual".equals(threads)) return Executors.newFixedThreadPool(Integer.parseInt(threads));
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Virtual threads need Java 21 or later, using a thread per core");
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+    }
+}
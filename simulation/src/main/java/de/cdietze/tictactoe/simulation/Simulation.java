@@ -0,0 +1,83 @@
+package de.cdietze.tictactoe.simulation;
+
+import de.cdietze.tictactoe.core.BoardState;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Plays games between two {@link Player}s through {@link BoardState}, split into batches that run concurrently on an
+ * {@link ExecutorService}.
+ */
+public final class Simulation {
+
+    /**
+     * Games per task, so the hand-off to the executor is cheap compared to the games.
+     */
+    static final int BATCH_SIZE = 1000;
+
+    private final Player x;
+    private final Player o;
+
+    public Simulation(Player x, Player o) {
+        this.x = x;
+        this.o = o;
+    }
+
+    /**
+     * Plays {@code games} games on {@code executor} and waits for all of them.
+     */
+    public Statistics run(long games, ExecutorService executor) throws InterruptedException {
+        final Statistics statistics = new Statistics();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (long start = 0; start < games; start += BATCH_SIZE) {
+            final int batchSize = (int) Math.min(BATCH_SIZE, games - start);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    for (int n = 0; n < batchSize; n++) play(statistics);
+                    return null;
+                }
+            });
+        }
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("A game failed", e.getCause());
+            }
+        }
+        return statistics;
+    }
+
+    /**
+     * Plays one game and adds it to {@code statistics}.
+     */
+    void play(Statistics statistics) {
+        long startNanos = System.nanoTime();
+        BoardState boardState = new BoardState();
+        int moveCount = 0;
+        while (boardState.gameState.get() == BoardState.GameState.RUNNING) {
+            int state = boardState.aiState();
+            Player player = boardState.isXToMove.get() ? x : o;
+            boardState.tryToMark(player.move(state));
+            ++moveCount;
+        }
+        statistics.gameNanos.record(System.nanoTime() - startNanos);
+        statistics.moves.add(moveCount);
+        switch (boardState.gameState.get()) {
+            case X_WON:
+                statistics.xWins.increment();
+                break;
+            case O_WON:
+                statistics.oWins.increment();
+                break;
+            default:
+                statistics.draws.increment();
+        }
+    }
+}
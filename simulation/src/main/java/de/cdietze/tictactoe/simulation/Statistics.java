@@ -0,0 +1,22 @@
+package de.cdietze.tictactoe.simulation;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Results of many games, updated concurrently without locks.
+ */
+public final class Statistics {
+
+    public final LongAdder xWins = new LongAdder();
+    public final LongAdder oWins = new LongAdder();
+    public final LongAdder draws = new LongAdder();
+    public final LongAdder moves = new LongAdder();
+    /**
+     * The duration of every game, from the first move to the end.
+     */
+    public final LatencyHistogram gameNanos = new LatencyHistogram();
+
+    public long games() {
+        return xWins.sum() + oWins.sum() + draws.sum();
+    }
+}
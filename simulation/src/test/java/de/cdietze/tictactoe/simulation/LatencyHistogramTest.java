@@ -0,0 +1,30 @@
+package de.cdietze.tictactoe.simulation;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsShouldContainTheirValues() {
+        long[] values = {0, 1, 7, 8, 15, 16, 17, 1000, 123456789, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = LatencyHistogram.bucket(value);
+            assertThat(LatencyHistogram.upperBound(bucket)).isGreaterThanOrEqualTo(value);
+            if (bucket > 0) assertThat(LatencyHistogram.upperBound(bucket - 1)).isLessThan(value);
+        }
+    }
+
+    @Test
+    public void shouldReportPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.percentile(50)).isEqualTo(0);
+        for (int i = 1; i <= 100; i++) histogram.record(i * 1000);
+        assertThat(histogram.count()).isEqualTo(100);
+        // Within the 1/8 resolution of the buckets
+        assertThat(histogram.percentile(50)).isBetween(50000L, 50000L * 9 / 8);
+        assertThat(histogram.percentile(99)).isBetween(99000L, 99000L * 9 / 8);
+        assertThat(histogram.percentile(100)).isBetween(100000L, 100000L * 9 / 8);
+    }
+}
@@ -0,0 +1,37 @@
+package de.cdietze.tictactoe.simulation;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SimulationTest {
+
+    private final ExecutorService executor = SelfPlay.createExecutor("4");
+
+    @After
+    public void shutDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void perfectPlayShouldAlwaysDraw() throws InterruptedException {
+        Statistics statistics = new Simulation(Player.AI, Player.AI).run(2500, executor);
+        assertThat(statistics.games()).isEqualTo(2500);
+        assertThat(statistics.draws.sum()).isEqualTo(2500);
+        assertThat(statistics.moves.sum()).isEqualTo(2500 * 9);
+        assertThat(statistics.gameNanos.count()).isEqualTo(2500);
+    }
+
+    @Test
+    public void aiShouldNeverLoseAgainstRandomPlayer() throws InterruptedException {
+        Statistics asO = new Simulation(Player.RANDOM, Player.AI).run(5000, executor);
+        assertThat(asO.games()).isEqualTo(5000);
+        assertThat(asO.xWins.sum()).isEqualTo(0);
+        Statistics asX = new Simulation(Player.AI, Player.RANDOM).run(5000, executor);
+        assertThat(asX.oWins.sum()).isEqualTo(0);
+        assertThat(asX.xWins.sum()).isGreaterThan(0);
+    }
+}